@@ -25,11 +25,27 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release-like build the :macrobenchmark module measures
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+    buildFeatures {
+        // BuildConfig.DEBUG gates the listener diagnostics, see ListenerRegistry
+        buildConfig = true
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // Benchmarks in src/test are skipped unless the build is run with -Pbenchmarks
+            it.systemProperty("benchmarks", project.hasProperty("benchmarks"))
+        }
+    }
 }
 
 dependencies {
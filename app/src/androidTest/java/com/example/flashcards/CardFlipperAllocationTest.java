@@ -0,0 +1,61 @@
+package com.example.flashcards;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures allocations on the per-frame path of {@link CardFlipper}, the one both
+ * the animator and gesture driven flips go through. ART only reports bytes
+ * allocated by the whole process, so the bound leaves room for other threads.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CardFlipperAllocationTest {
+
+    private static final int FRAMES = 600;
+    // The smallest object is 16 bytes, so this is less than one allocation per frame
+    private static final int MAX_BYTES_PER_FRAME = 16;
+
+    @Test
+    public void flipFrames_allocateNothing() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            FrameLayout card = new FrameLayout(context);
+            FrameLayout front = new FrameLayout(context);
+            FrameLayout back = new FrameLayout(context);
+            card.addView(front);
+            card.addView(back);
+            CardFlipper flipper = new CardFlipper(front, back);
+
+            // Warm up so one-time allocations inside the framework are not counted
+            for (int i = 0; i <= FRAMES; i++) {
+                flipper.setProgress(i / (float) FRAMES);
+            }
+
+            long before = bytesAllocated();
+            for (int i = 0; i <= FRAMES; i++) {
+                flipper.setProgress(1f - i / (float) FRAMES);
+            }
+            long allocated = bytesAllocated() - before;
+
+            Log.i("CardFlipperBenchmark", allocated + " bytes allocated over " + FRAMES
+                    + " frames (" + (allocated / (float) FRAMES) + " per frame)");
+            assertTrue(allocated + " bytes allocated", allocated < (long) MAX_BYTES_PER_FRAME * FRAMES);
+            assertTrue(flipper.isShowingFront());
+        });
+    }
+
+    // Bytes the process has allocated since it started
+    private static long bytesAllocated() {
+        return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.flashcards;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fires many overlapping batches of creates, deletes and category changes at
+ * one deck at once through {@link FlashcardSync#batchWriter}, as several
+ * devices editing the same cards would, then checks the deck summary's
+ * counters against count() queries on the Firestore emulator (see
+ * {@link FirestoreEmulator}).
+ */
+@RunWith(AndroidJUnit4.class)
+public class DeckCountersConcurrencyTest {
+
+    private static final int CARD_IDS = 60;
+    private static final int BATCHES = 40;
+    private static final int BATCH_SIZE = 8;
+    private static final String[] CATEGORIES = {"Biology", "History", "Maths", null};
+    // Tries per batch before the test gives up on it
+    private static final int MAX_ATTEMPTS = 25;
+
+    @Test
+    public void countersMatchCardsAfterConcurrentEdits() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        String deckKey = Deck.key("test-" + UUID.randomUUID(), "shared");
+        CollectionReference cards = Deck.cards(db, deckKey);
+        MutationQueue.Writer writer = FlashcardSync.batchWriter(cards, Deck.summary(db, deckKey),
+                Deck.userIdOf(deckKey));
+        Random random = new Random(3);
+
+        List<List<MutationQueue.Mutation>> batches = new ArrayList<>();
+        for (int b = 0; b < BATCHES; b++) {
+            // One write per card per batch, as MutationQueue guarantees
+            Set<String> ids = new HashSet<>();
+            List<MutationQueue.Mutation> batch = new ArrayList<>();
+            while (batch.size() < BATCH_SIZE) {
+                String id = "card-" + random.nextInt(CARD_IDS);
+                if (!ids.add(id)) continue;
+                batch.add(random.nextInt(3) == 0
+                        ? MutationQueue.Mutation.delete(id)
+                        : MutationQueue.Mutation.set(id, "Q" + b, "A", CATEGORIES[random.nextInt(CATEGORIES.length)],
+                                null, b + 1, false));
+            }
+            batches.add(batch);
+        }
+
+        // All in flight together; a transaction that keeps losing to the others is retried, as FlashcardSync does
+        CountDownLatch done = new CountDownLatch(BATCHES);
+        AtomicInteger retries = new AtomicInteger();
+        AtomicReference<Exception> gaveUp = new AtomicReference<>();
+        for (List<MutationQueue.Mutation> batch : batches) {
+            writeUntilCommitted(writer, batch, 1, done, retries, gaveUp);
+        }
+        assertTrue("Batches did not commit, " + retries.get() + " retries",
+                done.await(120, TimeUnit.SECONDS));
+        if (gaveUp.get() != null) {
+            throw new AssertionError("A batch failed " + MAX_ATTEMPTS + " times", gaveUp.get());
+        }
+
+        Deck summary = Tasks.await(Deck.summary(db, deckKey).get(Source.SERVER), 30, TimeUnit.SECONDS)
+                .toObject(Deck.class);
+        long total = Tasks.await(cards.count().get(AggregateSource.SERVER), 30, TimeUnit.SECONDS).getCount();
+        assertEquals(total, summary.getCardCount());
+        for (String category : CATEGORIES) {
+            if (category == null) continue;
+            long inCategory = Tasks.await(cards.whereEqualTo("category", category).count()
+                    .get(AggregateSource.SERVER), 30, TimeUnit.SECONDS).getCount();
+            Long counted = summary.getCategoryCounts().get(category);
+            assertEquals(category, inCategory, counted == null ? 0 : counted);
+        }
+    }
+
+    private static void writeUntilCommitted(MutationQueue.Writer writer, List<MutationQueue.Mutation> batch,
+                                            int attempt, CountDownLatch done, AtomicInteger retries,
+                                            AtomicReference<Exception> gaveUp) {
+        writer.write(batch, error -> {
+            if (error == null) {
+                done.countDown();
+            } else if (attempt >= MAX_ATTEMPTS) {
+                // Keeps the last error for the assertion
+                gaveUp.compareAndSet(null, error);
+                done.countDown();
+            } else {
+                retries.incrementAndGet();
+                writeUntilCommitted(writer, batch, attempt + 1, done, retries, gaveUp);
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.flashcards;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks against the Firestore emulator (see {@link FirestoreEmulator}) that
+ * card writes land in their deck's sub-collection and keep the deck summary's
+ * card count in step, and that {@link Deck#recount} agrees, including for
+ * categories written without counting.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DeckSummaryTest {
+
+    @Test
+    public void batchWritesKeepDeckCountInStep() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        String deckKey = Deck.key("test-" + UUID.randomUUID(), "biology");
+        CollectionReference cards = Deck.cards(db, deckKey);
+        assertEquals(Deck.deckIdOf(deckKey), cards.getParent().getId());
+        MutationQueue.Writer writer = FlashcardSync.batchWriter(cards, Deck.summary(db, deckKey),
+                Deck.userIdOf(deckKey));
+
+        List<MutationQueue.Mutation> creates = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            creates.add(MutationQueue.Mutation.set("card-" + i, "Q" + i, "A" + i, i + 1, true));
+        }
+        write(writer, creates);
+
+        List<MutationQueue.Mutation> edits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            edits.add(MutationQueue.Mutation.delete("card-" + i));
+            edits.add(MutationQueue.Mutation.set("card-" + (i + 10), "Edited", "A", 100, false));
+        }
+        write(writer, edits);
+
+        DocumentSnapshot summary = Tasks.await(Deck.summary(db, deckKey).get(Source.SERVER), 30, TimeUnit.SECONDS);
+        assertEquals(Long.valueOf(25), summary.getLong("cardCount"));
+        assertEquals(Long.valueOf(100), summary.getLong("updatedAt"));
+        assertEquals(Long.valueOf(25), Tasks.await(Deck.recount(db, deckKey), 30, TimeUnit.SECONDS));
+
+        // An edit keeps the creation date of the card it replaces
+        DocumentSnapshot edited = Tasks.await(cards.document("card-10").get(Source.SERVER), 30, TimeUnit.SECONDS);
+        assertEquals("Edited", edited.getString("question"));
+        assertEquals(Long.valueOf(11), edited.getLong("createdAt"));
+    }
+
+    @Test
+    public void recountFindsCategoriesTheSummaryDoesNotList() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        String deckKey = Deck.key("test-" + UUID.randomUUID(), "imported");
+        CollectionReference cards = Deck.cards(db, deckKey);
+        Map<String, Object> stale = new HashMap<>();
+        stale.put("categoryCounts", Collections.singletonMap("Gone", 4L));
+        Tasks.await(Deck.summary(db, deckKey).set(stale), 30, TimeUnit.SECONDS);
+
+        // Written directly, as an import does, so nothing is counted
+        WriteBatch batch = db.batch();
+        String[] categories = {"Biology", "History", "Biology", null, "Maths", "Biology"};
+        for (int i = 0; i < categories.length; i++) {
+            Map<String, Object> card = new HashMap<>();
+            card.put("question", "Q" + i);
+            card.put("answer", "A" + i);
+            card.put("category", categories[i]);
+            batch.set(cards.document("card-" + i), card);
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("Biology", "History", "Maths"),
+                Tasks.await(Deck.categories(cards), 30, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(6), Tasks.await(Deck.recount(db, deckKey), 30, TimeUnit.SECONDS));
+        Deck summary = Tasks.await(Deck.summary(db, deckKey).get(Source.SERVER), 30, TimeUnit.SECONDS)
+                .toObject(Deck.class);
+        assertEquals(Long.valueOf(3), summary.getCategoryCounts().get("Biology"));
+        assertEquals(Long.valueOf(1), summary.getCategoryCounts().get("History"));
+        assertEquals(Long.valueOf(1), summary.getCategoryCounts().get("Maths"));
+        assertEquals(Long.valueOf(0), summary.getCategoryCounts().get("Gone"));
+    }
+
+    private static void write(MutationQueue.Writer writer, List<MutationQueue.Mutation> batch) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Exception[] error = new Exception[1];
+        writer.write(batch, e -> {
+            error[0] = e;
+            done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(error[0]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.flashcards;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Documents read and latency of loading one category or tag with
+ * {@link FirestoreHelper#filteredQuery} against loading the whole deck, on
+ * the Firestore emulator (see {@link FirestoreEmulator}). Results are logged
+ * under the "FilteredLoadBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FilteredLoadBenchmark {
+
+    private static final int CARD_COUNT = 2000;
+    private static final int CATEGORIES = 20;
+    private static final int TAGS = 10;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void filteredLoadReadsOnlyMatchingCards() throws Exception {
+        CollectionReference flashcards = FirestoreEmulator.freshFlashcards();
+        seed(flashcards);
+
+        long[] full = load(flashcards);
+        long[] byCategory = load(FirestoreHelper.filteredQuery(flashcards, CardFilter.category("category-3")));
+        long[] byTag = load(FirestoreHelper.filteredQuery(flashcards, CardFilter.tag("tag-5")));
+
+        assertEquals(CARD_COUNT, full[0]);
+        assertEquals(CARD_COUNT / CATEGORIES, byCategory[0]);
+        // Every card has two of the tags
+        assertEquals(2 * CARD_COUNT / TAGS, byTag[0]);
+        Log.i("FilteredLoadBenchmark", String.format(
+                "full load %d docs in %d ms, category %d docs in %d ms, tag %d docs in %d ms (median of %d)",
+                full[0], full[1], byCategory[0], byCategory[1], byTag[0], byTag[1], ROUNDS));
+    }
+
+    // Card i is in category i % 20 and has tags i % 10 and (i + 1) % 10
+    private static void seed(CollectionReference flashcards) throws Exception {
+        for (int start = 0; start < CARD_COUNT; start += BulkImporter.MAX_BATCH_SIZE) {
+            WriteBatch batch = flashcards.getFirestore().batch();
+            for (int i = start; i < Math.min(CARD_COUNT, start + BulkImporter.MAX_BATCH_SIZE); i++) {
+                Map<String, Object> card = new HashMap<>();
+                card.put("question", "Question " + i);
+                card.put("answer", "Answer " + i);
+                card.put("category", "category-" + i % CATEGORIES);
+                card.put("tags", Arrays.asList("tag-" + i % TAGS, "tag-" + (i + 1) % TAGS));
+                card.put("updatedAt", (long) i);
+                batch.set(flashcards.document(String.format("card-%05d", i)), card);
+            }
+            Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+        }
+    }
+
+    // Documents read and median milliseconds, always from the server so the local cache cannot help
+    private static long[] load(Query query) throws Exception {
+        long[] millis = new long[ROUNDS];
+        int size = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            QuerySnapshot snapshot = Tasks.await(query.get(Source.SERVER), 60, TimeUnit.SECONDS);
+            millis[round] = (System.nanoTime() - start) / 1_000_000;
+            size = snapshot.size();
+        }
+        Arrays.sort(millis);
+        return new long[]{size, millis[ROUNDS / 2]};
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.flashcards;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.UUID;
+
+/**
+ * Points the app's Firestore instance at the local emulator. Start it with
+ * {@code firebase emulators:start --only firestore} before running the
+ * instrumented tests; 10.0.2.2 is the host machine seen from the Android emulator.
+ */
+final class FirestoreEmulator {
+
+    static final String HOST = "10.0.2.2";
+    static final int PORT = 8080;
+
+    private static boolean configured;
+
+    private FirestoreEmulator() {}
+
+    static synchronized FirebaseFirestore firestore() {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        if (!configured) {
+            db.useEmulator(HOST, PORT);
+            configured = true;
+        }
+        return db;
+    }
+
+    // A flashcards collection under a fresh user id so tests never see each other's data
+    static CollectionReference freshFlashcards() {
+        return firestore().collection("users")
+                .document("test-" + UUID.randomUUID())
+                .collection("flashcards");
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.flashcards;
+
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Load and soak test against the Firestore emulator (see {@link FirestoreEmulator}).
+ * Seeds one deck per user, then runs rounds of the list, filter, search,
+ * add and delete flows through the same code the screens use, and logs
+ * p50/p95/p99 latency, documents read per operation and heap use under the
+ * "FirestoreLoadTest" tag. The seeded decks are deleted afterwards.
+ *
+ * Sized by instrumentation arguments: loadUsers, loadCards (per deck, 1000
+ * to 100000), loadOps (operations of each kind per round) and loadRounds.
+ * For example:
+ * {@code ./gradlew :app:connectedDebugAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.example.flashcards.FirestoreLoadTest
+ * -Pandroid.testInstrumentationRunnerArguments.loadCards=100000}
+ */
+@RunWith(AndroidJUnit4.class)
+public class FirestoreLoadTest {
+
+    private static final String TAG = "FirestoreLoadTest";
+    private static final int PAGE_SIZE = 40;
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final String[] CATEGORIES = {"Biology", "History", "Maths", "Languages", "Physics", "Geography"};
+    private static final String[] WORDS = {
+            "cell", "membrane", "protein", "enzyme", "river", "mountain", "capital", "treaty",
+            "empire", "atom", "molecule", "theorem", "vector", "prime", "poem", "novel",
+            "planet", "orbit", "gravity", "photosynthesis", "mitochondria", "revolution"
+    };
+    private static final String[] QUERIES = {"mitochondria", "prime vector", "capital", "treaty of", "xyz"};
+
+    private final LoadStats list = new LoadStats("list");
+    private final LoadStats loadAll = new LoadStats("load all");
+    private final LoadStats filter = new LoadStats("filter");
+    private final LoadStats search = new LoadStats("search");
+    private final LoadStats add = new LoadStats("add");
+    private final LoadStats delete = new LoadStats("delete");
+    // Every deck seeded, even partly, so cleanup removes it
+    private final List<String> deckKeys = new ArrayList<>();
+
+    @Test
+    public void seedAndDriveDecks() throws Exception {
+        int users = argument("loadUsers", 3);
+        int cards = argument("loadCards", 1000);
+        int ops = argument("loadOps", 50);
+        int rounds = argument("loadRounds", 2);
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        Random random = new Random(11);
+
+        long seedStart = System.nanoTime();
+        for (int u = 0; u < users; u++) {
+            String deckKey = Deck.key("load-" + UUID.randomUUID(), "deck");
+            deckKeys.add(deckKey);
+            seed(db, deckKey, cards, random);
+        }
+        Log.i(TAG, String.format(Locale.ROOT, "Seeded %d decks of %d cards in %d s",
+                users, cards, (System.nanoTime() - seedStart) / 1_000_000_000));
+
+        long heapBefore = usedHeap();
+        long heapAfterFirstRound = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String deckKey : deckKeys) {
+                driveDeck(db, deckKey, cards, ops, random);
+            }
+            if (round == 0) {
+                heapAfterFirstRound = usedHeap();
+            }
+        }
+        long heapAfter = usedHeap();
+
+        Log.i(TAG, String.format(Locale.ROOT, "%d users, %d cards per deck, %d rounds", users, cards, rounds));
+        for (LoadStats stats : Arrays.asList(list, loadAll, filter, search, add, delete)) {
+            Log.i(TAG, stats.toString());
+        }
+        Log.i(TAG, String.format(Locale.ROOT,
+                "Java heap %d KB before, %d KB after round 1, %d KB after round %d; native heap %d KB",
+                heapBefore / 1024, heapAfterFirstRound / 1024, heapAfter / 1024, rounds,
+                Debug.getNativeHeapAllocatedSize() / 1024));
+        Log.i(TAG, ListenerRegistry.getInstance().summary());
+
+        assertEquals(rounds * users * ops, add.count());
+        assertEquals(rounds * users * ops, delete.count());
+        // Every page listener the list flow attached has been removed again
+        for (String deckKey : deckKeys) {
+            assertEquals(Collections.emptyList(),
+                    ListenerRegistry.getInstance().leaks("cards " + Deck.cards(db, deckKey).getPath()));
+        }
+    }
+
+    // Deletes the seeded cards a batch at a time, then each deck's summary
+    @After
+    public void deleteSeededDecks() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        for (String deckKey : deckKeys) {
+            CollectionReference flashcards = Deck.cards(db, deckKey);
+            while (true) {
+                QuerySnapshot page = Tasks.await(flashcards.limit(BulkImporter.MAX_BATCH_SIZE).get(Source.SERVER),
+                        120, TimeUnit.SECONDS);
+                if (page.isEmpty()) break;
+                WriteBatch batch = db.batch();
+                for (DocumentSnapshot doc : page.getDocuments()) {
+                    batch.delete(doc.getReference());
+                }
+                Tasks.await(batch.commit(), 120, TimeUnit.SECONDS);
+            }
+            Tasks.await(Deck.summary(db, deckKey).delete(), 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private void driveDeck(FirebaseFirestore db, String deckKey, int cards, int ops, Random random)
+            throws Exception {
+        CollectionReference flashcards = Deck.cards(db, deckKey);
+
+        for (int i = 0; i < ops; i++) {
+            listFirstPage(flashcards);
+        }
+
+        // The whole deck, paged and decoded by FlashcardCodec the way export reads
+        // it, so every card has its category and tags, then held with its search index
+        long heapBeforeLoad = usedHeap();
+        long start = System.nanoTime();
+        List<Flashcard> deck = loadAll(db, deckKey);
+        loadAll.record(System.nanoTime() - start, deck.size());
+        SearchIndex index = new SearchIndex();
+        for (Flashcard flashcard : deck) {
+            index.add(flashcard);
+        }
+        long heldBytes = usedHeap() - heapBeforeLoad;
+        assertEquals(cards, deck.size());
+        Log.i(TAG, String.format(Locale.ROOT,
+                "%s: %d cards as export decodes them, held with their search index, %d bytes per card",
+                deckKey, deck.size(), heldBytes / deck.size()));
+
+        for (int i = 0; i < ops; i++) {
+            String category = CATEGORIES[i % CATEGORIES.length];
+            start = System.nanoTime();
+            QuerySnapshot snapshot = Tasks.await(FirestoreHelper.filteredQuery(flashcards, CardFilter.category(category))
+                    .get(Source.SERVER), 60, TimeUnit.SECONDS);
+            // An empty result is still billed as one read
+            filter.record(System.nanoTime() - start, Math.max(1, snapshot.size()));
+
+            start = System.nanoTime();
+            index.search(QUERIES[i % QUERIES.length]);
+            search.record(System.nanoTime() - start, 0);
+        }
+
+        // Each write is its own transaction, as when a user saves one card at a time
+        MutationQueue.Writer writer = FlashcardSync.batchWriter(flashcards, Deck.summary(db, deckKey),
+                Deck.userIdOf(deckKey));
+        List<String> added = new ArrayList<>(ops);
+        for (int i = 0; i < ops; i++) {
+            String id = flashcards.document().getId();
+            start = System.nanoTime();
+            write(writer, MutationQueue.Mutation.set(id, sentence(random, 6) + "?", sentence(random, 14) + ".",
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], null, System.currentTimeMillis(), true));
+            // The transaction reads the card before writing it
+            add.record(System.nanoTime() - start, 1);
+            added.add(id);
+        }
+        for (String id : added) {
+            start = System.nanoTime();
+            write(writer, MutationQueue.Mutation.delete(id));
+            delete.record(System.nanoTime() - start, 1);
+        }
+    }
+
+    // What the list screen does on open: the pager's first page, timed until it has loaded
+    private void listFirstPage(CollectionReference flashcards) throws Exception {
+        LinkedBlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        long[] documents = new long[1];
+        FlashcardPager pager = new FlashcardPager(flashcards, PAGE_SIZE, new FlashcardPager.Callback() {
+            @Override
+            public void onCardsChanged(List<DocumentSnapshot> upserts, List<String> removedIds) {
+                for (DocumentSnapshot doc : upserts) {
+                    // Served from the device's cache, not read from the server
+                    if (!doc.getMetadata().isFromCache()) documents[0]++;
+                }
+            }
+
+            @Override
+            public void onRangeLoaded(String afterId, String lastId, Set<String> ids) {
+                events.add(ids);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                events.add(e);
+            }
+        });
+
+        long start = System.nanoTime();
+        onMain(pager::resume);
+        Object event = events.poll(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        onMain(pager::pause);
+        assertNotNull("Timed out waiting for the first page", event);
+        if (event instanceof Exception) {
+            throw new AssertionError("First page failed", (Exception) event);
+        }
+        list.record(elapsed, documents[0]);
+    }
+
+    private static List<Flashcard> loadAll(FirebaseFirestore db, String deckKey) throws Exception {
+        CardExporter.PageSource source = new FirestoreHelper(db).exportPageSource(deckKey);
+        List<Flashcard> deck = new ArrayList<>();
+        String afterId = null;
+        while (true) {
+            List<Flashcard> page = source.fetchPage(afterId, EXPORT_PAGE_SIZE);
+            deck.addAll(page);
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return deck;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // Writes the cards directly in batches, then recounts the deck as an import does
+    private static void seed(FirebaseFirestore db, String deckKey, int cards, Random random) throws Exception {
+        CollectionReference flashcards = Deck.cards(db, deckKey);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("name", "Load test");
+        summary.put("cardCount", 0);
+        Tasks.await(Deck.summary(db, deckKey).set(summary), 60, TimeUnit.SECONDS);
+
+        for (int start = 0; start < cards; start += BulkImporter.MAX_BATCH_SIZE) {
+            WriteBatch batch = db.batch();
+            for (int i = start; i < Math.min(cards, start + BulkImporter.MAX_BATCH_SIZE); i++) {
+                Map<String, Object> card = new HashMap<>();
+                card.put("question", sentence(random, 6) + "?");
+                card.put("answer", sentence(random, 14) + ".");
+                card.put("category", CATEGORIES[i % CATEGORIES.length]);
+                card.put("tags", Arrays.asList("tag-" + i % 10, "tag-" + (i + 1) % 10));
+                card.put("userId", Deck.userIdOf(deckKey));
+                card.put("updatedAt", (long) i + 1);
+                batch.set(flashcards.document(String.format(Locale.ROOT, "card-%06d", i)), card);
+            }
+            Tasks.await(batch.commit(), 120, TimeUnit.SECONDS);
+        }
+        assertEquals(Long.valueOf(cards), Tasks.await(Deck.recount(db, deckKey), 120, TimeUnit.SECONDS));
+    }
+
+    private static void write(MutationQueue.Writer writer, MutationQueue.Mutation mutation) throws Exception {
+        LinkedBlockingQueue<Object> result = new LinkedBlockingQueue<>();
+        onMain(() -> writer.write(Collections.singletonList(mutation),
+                error -> result.add(error == null ? Boolean.TRUE : error)));
+        Object outcome = result.poll(60, TimeUnit.SECONDS);
+        assertNotNull("Timed out waiting for a write", outcome);
+        if (outcome instanceof Exception) {
+            throw new AssertionError("Write failed", (Exception) outcome);
+        }
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static int argument(String name, int defaultValue) {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String value = arguments.getString(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void onMain(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.flashcards;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs {@link FlashcardPager} against the Firestore emulator (see {@link FirestoreEmulator}).
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlashcardPagerTest {
+
+    private static final int CARD_COUNT = 55;
+    private static final int PAGE_SIZE = 20;
+
+    private final LinkedBlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private final Set<String> loadedIds = new TreeSet<>();
+    private CollectionReference flashcards;
+    private FlashcardPager pager;
+
+    @Before
+    public void setUp() throws Exception {
+        flashcards = FirestoreEmulator.freshFlashcards();
+        WriteBatch batch = flashcards.getFirestore().batch();
+        for (int i = 0; i < CARD_COUNT; i++) {
+            Map<String, Object> card = new HashMap<>();
+            card.put("question", "Question " + i);
+            card.put("answer", "Answer " + i);
+            batch.set(flashcards.document(String.format("card-%03d", i)), card);
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+
+        pager = new FlashcardPager(flashcards, PAGE_SIZE, new FlashcardPager.Callback() {
+            @Override
+            public void onCardsChanged(List<DocumentSnapshot> upserts, List<String> removedIds) {
+                for (DocumentSnapshot doc : upserts) {
+                    loadedIds.add(doc.getId());
+                }
+                loadedIds.removeAll(removedIds);
+                events.add(removedIds);
+            }
+
+            @Override
+            public void onRangeLoaded(String afterId, String lastId, Set<String> ids) {
+                assertTrue(ids.size() <= PAGE_SIZE);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                events.add(e);
+            }
+        });
+    }
+
+    @Test
+    public void pagesThroughCollectionWithCursors() throws Exception {
+        onMain(pager::resume);
+        awaitEvent();
+        assertEquals(PAGE_SIZE, loadedIds.size());
+        assertTrue(pager.hasMore());
+
+        while (pager.hasMore()) {
+            onMain(pager::loadNextPage);
+            awaitEvent();
+        }
+
+        assertEquals(CARD_COUNT, loadedIds.size());
+        assertEquals("card-000", ((TreeSet<String>) loadedIds).first());
+        assertEquals("card-054", ((TreeSet<String>) loadedIds).last());
+    }
+
+    @Test
+    public void deletionInVisiblePageIsReported() throws Exception {
+        onMain(pager::resume);
+        awaitEvent();
+
+        Tasks.await(flashcards.document("card-005").delete(), 30, TimeUnit.SECONDS);
+
+        // The first page's live listener reports the removal
+        Object event;
+        do {
+            event = awaitEvent();
+        } while (event instanceof List && ((List<?>) event).isEmpty());
+        assertTrue(((List<?>) event).contains("card-005"));
+        assertFalse(loadedIds.contains("card-005"));
+        onMain(pager::pause);
+    }
+
+    private Object awaitEvent() throws InterruptedException {
+        Object event = events.poll(30, TimeUnit.SECONDS);
+        assertNotNull("Timed out waiting for the pager", event);
+        if (event instanceof Exception) {
+            throw new AssertionError("Pager failed", (Exception) event);
+        }
+        return event;
+    }
+
+    private static void onMain(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
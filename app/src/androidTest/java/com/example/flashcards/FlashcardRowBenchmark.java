@@ -0,0 +1,107 @@
+package com.example.flashcards;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.appcompat.view.ContextThemeWrapper;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-row cost of the card list: inflating a row with its answer face left
+ * in the stub, as the list now does, against inflating both faces up front,
+ * as every row used to; then binding and laying out unflipped rows. Results
+ * are logged under the "FlashcardRowBenchmark" tag. Scroll jank is measured
+ * on a device by FlipScrollBenchmark in the macrobenchmark module.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlashcardRowBenchmark {
+
+    private static final int ROWS = 500;
+    private static final int WARMUP_ROWS = 50;
+
+    @Test
+    public void inflateAndBindRows() throws Exception {
+        Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.Theme_FlashCards);
+        List<Flashcard> cards = cards(ROWS);
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        long[] nanos = new long[3];
+
+        onMain(() -> {
+            FrameLayout parent = new FrameLayout(context);
+            LayoutInflater inflater = LayoutInflater.from(context);
+            inflateRows(inflater, parent, WARMUP_ROWS, true);
+            inflateRows(inflater, parent, WARMUP_ROWS, false);
+
+            nanos[0] = inflateRows(inflater, parent, ROWS, false);
+            nanos[1] = inflateRows(inflater, parent, ROWS, true);
+
+            FlashcardAdapter.FlashcardViewHolder holder = new FlashcardAdapter.FlashcardViewHolder(
+                    inflater.inflate(R.layout.item_flashcard, parent, false), null);
+            assertNull(holder.cardBack);
+            TextLayoutCache cache = new TextLayoutCache(ROWS, background, new Handler(Looper.getMainLooper())::post);
+            cache.setParams(holder.tvQuestion);
+            View row = holder.itemView;
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (Flashcard card : cards) {
+                    holder.bind(card, cache);
+                    row.measure(widthSpec, heightSpec);
+                    row.layout(0, 0, row.getMeasuredWidth(), row.getMeasuredHeight());
+                }
+                // The first round warms up
+                nanos[2] = System.nanoTime() - start;
+            }
+        });
+        background.shutdown();
+
+        Log.i("FlashcardRowBenchmark", String.format(
+                "inflate %d us/row with the answer face deferred, %d us/row with both faces;"
+                        + " bind+layout %d us/row",
+                nanos[0] / ROWS / 1000, nanos[1] / ROWS / 1000, nanos[2] / ROWS / 1000));
+    }
+
+    private static long inflateRows(LayoutInflater inflater, ViewGroup parent, int count, boolean bothFaces) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            FlashcardAdapter.FlashcardViewHolder holder = new FlashcardAdapter.FlashcardViewHolder(
+                    inflater.inflate(R.layout.item_flashcard, parent, false), null);
+            if (bothFaces) {
+                holder.inflateBack();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Flashcard> cards(int count) {
+        List<Flashcard> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(new Flashcard(String.format("card-%03d", i), "What is the capital of country " + i + "?",
+                    "The capital of country " + i + " is city " + (i * 7 % count) + "."));
+        }
+        return cards;
+    }
+
+    private static void onMain(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.flashcards;
+
+import android.app.Instrumentation;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a screen observing a deck through {@link FlashcardRepository#observe}
+ * back and forth between resumed and paused, against the Firestore emulator
+ * (see {@link FirestoreEmulator}), and checks with {@link ListenerRegistry}
+ * that its listeners never pile up and are all gone once it is destroyed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListenerLeakTest {
+
+    private static final int CARD_COUNT = 30;
+    private static final int CYCLES = 20;
+
+    // Stands in for an activity; the test moves it between states by hand
+    private static class Screen implements LifecycleOwner {
+        final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final ListenerRegistry registry = ListenerRegistry.getInstance();
+    private String userId;
+    private FlashcardRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.firestore();
+        userId = "test-" + UUID.randomUUID();
+        CollectionReference flashcards = Deck.cards(db, userId);
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < CARD_COUNT; i++) {
+            Map<String, Object> card = new HashMap<>();
+            card.put("question", "Question " + i);
+            card.put("answer", "Answer " + i);
+            batch.set(flashcards.document(String.format("card-%03d", i)), card);
+        }
+        batch.set(Deck.summary(db, userId), new Deck(Deck.DEFAULT_ID, Deck.DEFAULT_NAME));
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+        repository = FlashcardRepository.getInstance(instrumentation.getTargetContext());
+    }
+
+    @Test
+    public void resumePauseCycles_neverAddListeners() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        Screen screen = new Screen();
+        DeckFeed[] feed = new DeckFeed[1];
+        instrumentation.runOnMainSync(() -> {
+            screen.lifecycle.setCurrentState(Lifecycle.State.CREATED);
+            feed[0] = repository.observe(screen, userId, new DeckFeed.Observer() {
+                @Override
+                public void onCardsChanged(List<Flashcard> changed, List<String> removedIds) {
+                    if (feed[0] != null && feed[0].size() == CARD_COUNT) loaded.countDown();
+                }
+
+                @Override
+                public void onSummaryChanged(Deck summary) {}
+
+                @Override
+                public void onError(Exception e) {}
+            });
+            screen.lifecycle.setCurrentState(Lifecycle.State.RESUMED);
+        });
+        assertTrue("Cards never loaded", loaded.await(30, TimeUnit.SECONDS));
+        int listening = activeListeners();
+        assertTrue("Expected the summary and page listeners, got " + listening, listening >= 2);
+
+        for (int i = 0; i < CYCLES; i++) {
+            instrumentation.runOnMainSync(() -> screen.lifecycle.setCurrentState(Lifecycle.State.STARTED));
+            assertEquals("Listeners left attached while paused", 0, activeListeners());
+            instrumentation.runOnMainSync(() -> screen.lifecycle.setCurrentState(Lifecycle.State.RESUMED));
+            assertEquals("Listeners added by resume " + (i + 1), listening, activeListeners());
+        }
+
+        instrumentation.runOnMainSync(() -> screen.lifecycle.setCurrentState(Lifecycle.State.DESTROYED));
+        List<Throwable> leaks = registry.leaks("cards users/" + userId + "/");
+        leaks.addAll(registry.leaks("summary users/" + userId + "/"));
+        assertTrue(leaks.size() + " listeners leaked:" + stackTraces(leaks), leaks.isEmpty());
+        assertFalse(feed[0].hasObservers());
+
+        for (ListenerRegistry.Stats stats : registry.getStats()) {
+            if (stats.name.equals("cards users/" + userId + "/flashcards")) {
+                assertTrue(stats.getFires() >= CYCLES);
+                assertTrue(stats.getDocuments() >= CARD_COUNT);
+                assertTrue(stats.getDeserializeNanos() > 0);
+            }
+        }
+    }
+
+    // Where each leaked listener was added, for the failure message
+    private static String stackTraces(List<Throwable> leaks) {
+        StringWriter traces = new StringWriter();
+        try (PrintWriter out = new PrintWriter(traces)) {
+            for (Throwable leak : leaks) {
+                out.println();
+                leak.printStackTrace(out);
+            }
+        }
+        return traces.toString();
+    }
+
+    private int activeListeners() {
+        return registry.activeCount("cards users/" + userId + "/")
+                + registry.activeCount("summary users/" + userId + "/");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.flashcards;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Latencies and documents read of one kind of operation in
+ * {@link FirestoreLoadTest}, summarized as percentiles.
+ */
+final class LoadStats {
+
+    private final String name;
+    private long[] nanos = new long[64];
+    private int count;
+    private long documents;
+
+    LoadStats(String name) {
+        this.name = name;
+    }
+
+    void record(long elapsedNanos, long documentsRead) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+        documents += documentsRead;
+    }
+
+    int count() {
+        return count;
+    }
+
+    // Nearest-rank percentile in milliseconds, 0 before anything was recorded
+    double percentileMs(int percentile) {
+        return SessionMetrics.percentile(Arrays.copyOf(nanos, count), percentile) / 1e6;
+    }
+
+    double documentsPerOperation() {
+        return count == 0 ? 0 : (double) documents / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-10s %6d ops  p50 %8.1f ms  p95 %8.1f ms  p99 %8.1f ms  %8.1f docs/op",
+                name, count, percentileMs(50), percentileMs(95), percentileMs(99), documentsPerOperation());
+    }
+}
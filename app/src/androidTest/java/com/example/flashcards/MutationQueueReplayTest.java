@@ -0,0 +1,104 @@
+package com.example.flashcards;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays a random edit history through {@link MutationQueue} against the
+ * Firestore emulator (see {@link FirestoreEmulator}) and checks the server
+ * ends up exactly where the edits left the local model.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MutationQueueReplayTest {
+
+    private static final int CARD_IDS = 40;
+    private static final int EDITS = 600;
+    private static final int BATCH_SIZE = 25;
+
+    @Test
+    public void randomEditHistoryConverges() throws Exception {
+        CollectionReference flashcards = FirestoreEmulator.freshFlashcards();
+        MutationQueue.Writer writer = FlashcardSync.batchWriter(flashcards,
+                Deck.summary(flashcards.getFirestore(), flashcards.getParent().getId()), "test-user");
+        MutationQueue queue = new MutationQueue();
+        Random random = new Random(7);
+        // Expected server state: id to question, plus which ids the server has ever seen
+        Map<String, String> model = new HashMap<>();
+        Set<String> everWritten = new HashSet<>();
+        int[] writes = {0};
+        MutationQueue.Writer countingWriter = (batch, done) -> {
+            writes[0] += batch.size();
+            for (MutationQueue.Mutation mutation : batch) {
+                everWritten.add(mutation.id);
+            }
+            writer.write(batch, done);
+        };
+
+        for (int i = 0; i < EDITS; i++) {
+            String id = "card-" + random.nextInt(CARD_IDS);
+            boolean delete = random.nextInt(4) == 0;
+            String question = "Q" + i;
+            onMain(() -> {
+                if (delete) {
+                    if (!model.containsKey(id)) return;
+                    queue.enqueue(MutationQueue.Mutation.delete(id));
+                    model.remove(id);
+                } else {
+                    // A card is new if it is not in the model and the server never had it
+                    boolean created = !model.containsKey(id) && !everWritten.contains(id)
+                            && queue.getPending(id) == null;
+                    queue.enqueue(MutationQueue.Mutation.set(id, question, "A", System.currentTimeMillis(), created));
+                    model.put(id, question);
+                }
+            });
+            // Flush now and then, with edits still arriving while batches are in flight
+            if (random.nextInt(20) == 0) {
+                onMain(() -> queue.flush(countingWriter, BATCH_SIZE));
+            }
+        }
+
+        // Drain what is left
+        long deadline = System.currentTimeMillis() + 60_000;
+        boolean[] empty = {false};
+        while (!empty[0]) {
+            assertTrue("Queue did not drain", System.currentTimeMillis() < deadline);
+            onMain(() -> {
+                queue.flush(countingWriter, BATCH_SIZE);
+                empty[0] = queue.isEmpty();
+            });
+            Thread.sleep(50);
+        }
+
+        QuerySnapshot snapshot = Tasks.await(flashcards.get(Source.SERVER), 30, TimeUnit.SECONDS);
+        Map<String, String> server = new HashMap<>();
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            server.put(document.getId(), document.getString("question"));
+        }
+        assertEquals(model, server);
+        // Coalescing must have saved most of the writes
+        assertTrue("wrote " + writes[0] + " of " + queue.getEnqueuedCount(),
+                writes[0] < queue.getEnqueuedCount() / 2);
+    }
+
+    private static void onMain(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.flashcards;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams parsed cards into fixed-size write batches and keeps a bounded
+ * number of them in flight, so importing a large deck costs one round-trip
+ * per batch instead of one per card while memory stays bounded by
+ * {@code batchSize * maxInFlight} cards.
+ *
+ * Batches can finish out of order, so progress is reported as the number of
+ * cards committed contiguously from the start of the file. Restarting with
+ * that number skips exactly the cards already written; as long as the writer
+ * derives document ids from card positions, re-writing a batch that did land
+ * after a later one failed is harmless.
+ */
+public class BulkImporter {
+
+    // Firestore's limit on operations in one WriteBatch
+    public static final int MAX_BATCH_SIZE = 500;
+
+    public interface BatchWriter {
+        // firstIndex is the position of cards.get(0) in the source file.
+        // Must call done exactly once, on any thread.
+        void write(long firstIndex, List<Flashcard> cards, Completion done);
+    }
+
+    public interface Completion {
+        // error is null on success
+        void onComplete(Exception error);
+    }
+
+    public interface Listener {
+        // committed is the resume point: every card before it is stored
+        void onProgress(long committed, double cardsPerSecond);
+        void onFinished(long committed, int skippedRows);
+        void onFailed(long committed, Exception error);
+    }
+
+    private final BatchWriter writer;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Object lock = new Object();
+    // Completed batches that are waiting for an earlier batch, first index to size
+    private final TreeMap<Long, Integer> completedAhead = new TreeMap<>();
+    private long committed;
+    private Exception failure;
+    private volatile boolean cancelled;
+
+    public BulkImporter(BatchWriter writer, int batchSize, int maxInFlight) {
+        this.writer = writer;
+        this.batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Blocks until the whole input is written or a batch fails; call off the main thread
+    public void run(CardImportParser parser, long resumeFrom, Listener listener) {
+        long startNanos = System.nanoTime();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        synchronized (lock) {
+            committed = resumeFrom;
+            completedAhead.clear();
+            failure = null;
+        }
+
+        try {
+            long index = 0;
+            while (index < resumeFrom && parser.next() != null) {
+                index++;
+            }
+
+            List<Flashcard> batch = new ArrayList<>(batchSize);
+            Flashcard card;
+            while (true) {
+                card = parser.next();
+                if (card != null) {
+                    batch.add(card);
+                }
+                if (batch.size() == batchSize || (card == null && !batch.isEmpty())) {
+                    inFlight.acquire();
+                    if (cancelled || hasFailed()) {
+                        inFlight.release();
+                        break;
+                    }
+                    long firstIndex = index;
+                    int size = batch.size();
+                    writer.write(firstIndex, batch, error -> {
+                        onBatchComplete(firstIndex, size, error, startNanos, resumeFrom, listener);
+                        inFlight.release();
+                    });
+                    index += size;
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (card == null) break;
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+
+        // Wait for the batches still in flight however the loop ended, so no
+        // progress callback can follow the final one and the resume point holds
+        inFlight.acquireUninterruptibly(maxInFlight);
+
+        long committedCards;
+        Exception error;
+        synchronized (lock) {
+            committedCards = committed;
+            error = failure;
+        }
+        if (error != null) {
+            listener.onFailed(committedCards, error);
+        } else if (cancelled) {
+            listener.onFailed(committedCards, new InterruptedException("Import cancelled"));
+        } else {
+            listener.onFinished(committedCards, parser.getSkippedRows());
+        }
+    }
+
+    private void onBatchComplete(long firstIndex, int size, Exception error, long startNanos,
+                                 long resumeFrom, Listener listener) {
+        long committedCards;
+        synchronized (lock) {
+            if (error != null) {
+                if (failure == null) failure = error;
+                return;
+            }
+            completedAhead.put(firstIndex, size);
+            // Advance over every batch that now follows on without a gap
+            while (!completedAhead.isEmpty() && completedAhead.firstKey() == committed) {
+                committed += completedAhead.pollFirstEntry().getValue();
+            }
+            committedCards = committed;
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        listener.onProgress(committedCards, seconds > 0 ? (committedCards - resumeFrom) / seconds : 0);
+    }
+
+    private boolean hasFailed() {
+        synchronized (lock) {
+            return failure != null;
+        }
+    }
+
+    private void fail(Exception e) {
+        synchronized (lock) {
+            if (failure == null) failure = e;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.flashcards;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes cards as gzip-compressed NDJSON, one
+ * {@code {"id":...,"question":...,"answer":...,"category":...,"tags":[...]}}
+ * object per line.
+ *
+ * Each line is JSON-escaped and UTF-8 encoded by hand into one reused byte
+ * array, then deflated and handed to the channel in large buffered writes, so
+ * the per-card cost is copying its characters and nothing else is allocated
+ * once the buffer has grown to fit the longest card.
+ */
+public class CardExportWriter implements Closeable {
+
+    private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_FIELD = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUESTION_FIELD = ",\"question\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ANSWER_FIELD = ",\"answer\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CATEGORY_FIELD = ",\"category\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TAGS_FIELD = ",\"tags\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_END = "]}\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private byte[] line = new byte[1024];
+    private int length;
+    private long cardCount;
+    private long uncompressedBytes;
+
+    public CardExportWriter(WritableByteChannel channel) throws IOException {
+        out = new GZIPOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                CHANNEL_BUFFER_SIZE), CHANNEL_BUFFER_SIZE);
+    }
+
+    // tags may be null for a card without any
+    public void write(String id, String question, String answer, String category, List<String> tags)
+            throws IOException {
+        length = 0;
+        append(ID_FIELD);
+        appendString(id);
+        append(QUESTION_FIELD);
+        appendString(question);
+        append(ANSWER_FIELD);
+        appendString(answer);
+        append(CATEGORY_FIELD);
+        appendString(category);
+        append(TAGS_FIELD);
+        if (tags != null) {
+            // Indexed, so no iterator is allocated
+            for (int i = 0; i < tags.size(); i++) {
+                if (i > 0) {
+                    ensureCapacity(1);
+                    line[length++] = ',';
+                }
+                appendString(tags.get(i));
+            }
+        }
+        append(LINE_END);
+
+        out.write(line, 0, length);
+        cardCount++;
+        uncompressedBytes += length;
+    }
+
+    public void write(Flashcard flashcard) throws IOException {
+        write(flashcard.getId(), flashcard.getQuestion(), flashcard.getAnswer(), flashcard.getCategory(),
+                flashcard.getTags());
+    }
+
+    public long getCardCount() {
+        return cardCount;
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, line, length, bytes.length);
+        length += bytes.length;
+    }
+
+    // JSON string literal, escaped and encoded to UTF-8 without intermediate objects
+    private void appendString(String value) {
+        if (value == null) {
+            ensureCapacity(4);
+            line[length++] = 'n';
+            line[length++] = 'u';
+            line[length++] = 'l';
+            line[length++] = 'l';
+            return;
+        }
+
+        // Worst case is 6 bytes per char (\\uXXXX) plus the quotes
+        ensureCapacity(value.length() * 6 + 2);
+        line[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line[length++] = '\\';
+                line[length++] = (byte) c;
+            } else if (c == '\n') {
+                line[length++] = '\\';
+                line[length++] = 'n';
+            } else if (c == '\r') {
+                line[length++] = '\\';
+                line[length++] = 'r';
+            } else if (c == '\t') {
+                line[length++] = '\\';
+                line[length++] = 't';
+            } else if (c < 0x20) {
+                line[length++] = '\\';
+                line[length++] = 'u';
+                line[length++] = '0';
+                line[length++] = '0';
+                line[length++] = HEX[c >> 4];
+                line[length++] = HEX[c & 0xf];
+            } else if (c < 0x80) {
+                line[length++] = (byte) c;
+            } else if (c < 0x800) {
+                line[length++] = (byte) (0xc0 | (c >> 6));
+                line[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                line[length++] = (byte) (0xf0 | (codePoint >> 18));
+                line[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                line[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                line[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, not representable in UTF-8
+                line[length++] = '?';
+            } else {
+                line[length++] = (byte) (0xe0 | (c >> 12));
+                line[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                line[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        line[length++] = '"';
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > line.length) {
+            byte[] grown = new byte[Math.max(line.length * 2, length + extra)];
+            System.arraycopy(line, 0, grown, 0, length);
+            line = grown;
+        }
+    }
+}
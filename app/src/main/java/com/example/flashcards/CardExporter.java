@@ -0,0 +1,71 @@
+package com.example.flashcards;
+
+import java.util.List;
+
+/**
+ * Copies a whole deck into a {@link CardExportWriter} one page at a time.
+ * Each page is requested after the last id of the previous one and dropped
+ * once written, so memory holds at most one page of cards whatever the size
+ * of the deck.
+ */
+public class CardExporter {
+
+    public interface PageSource {
+        // Up to limit cards in id order whose ids sort after afterId (null for
+        // the first page). Blocks until the page arrives.
+        List<Flashcard> fetchPage(String afterId, int limit) throws Exception;
+    }
+
+    public interface Listener {
+        void onProgress(long exported, double cardsPerSecond);
+        void onFinished(long exported, long uncompressedBytes);
+        void onFailed(long exported, Exception error);
+    }
+
+    private final PageSource source;
+    private final int pageSize;
+    private volatile boolean cancelled;
+
+    public CardExporter(PageSource source, int pageSize) {
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Blocks until the deck is written or a page fails; call off the main thread.
+    // The writer is left open, the caller closes it.
+    public void run(CardExportWriter writer, Listener listener) {
+        long startNanos = System.nanoTime();
+        String lastId = null;
+        try {
+            while (!cancelled) {
+                List<Flashcard> page = source.fetchPage(lastId, pageSize);
+                for (Flashcard card : page) {
+                    writer.write(card);
+                }
+                if (page.isEmpty()) break;
+                lastId = page.get(page.size() - 1).getId();
+
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                listener.onProgress(writer.getCardCount(), seconds > 0 ? writer.getCardCount() / seconds : 0);
+                // A short page is the end of the collection
+                if (page.size() < pageSize) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } catch (Exception e) {
+            listener.onFailed(writer.getCardCount(), e);
+            return;
+        }
+
+        if (cancelled) {
+            listener.onFailed(writer.getCardCount(), new InterruptedException("Export cancelled"));
+        } else {
+            listener.onFinished(writer.getCardCount(), writer.getUncompressedBytes());
+        }
+    }
+}
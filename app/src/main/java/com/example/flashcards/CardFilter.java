@@ -0,0 +1,55 @@
+package com.example.flashcards;
+
+import java.util.Objects;
+
+/**
+ * Narrows the card list to one category or one tag. The same filter picks
+ * cards out of {@link TagIndex} locally and becomes a Firestore
+ * {@code whereEqualTo} or {@code whereArrayContains} query, see
+ * {@link FirestoreHelper#filteredQuery}.
+ */
+public final class CardFilter {
+
+    public enum Field {
+        CATEGORY, TAG
+    }
+
+    public final Field field;
+    public final String value;
+
+    private CardFilter(Field field, String value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    public static CardFilter category(String category) {
+        return new CardFilter(Field.CATEGORY, category);
+    }
+
+    public static CardFilter tag(String tag) {
+        return new CardFilter(Field.TAG, tag);
+    }
+
+    public boolean matches(Flashcard card) {
+        return field == Field.CATEGORY
+                ? value.equals(card.getCategory())
+                : card.getTags().contains(value);
+    }
+
+    public String label() {
+        return field == Field.CATEGORY ? value : "#" + value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CardFilter)) return false;
+        CardFilter other = (CardFilter) o;
+        return field == other.field && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, value);
+    }
+}
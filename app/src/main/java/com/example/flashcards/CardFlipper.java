@@ -0,0 +1,156 @@
+package com.example.flashcards;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * Flips between the two faces of a card. Used by the list rows and
+ * {@link ViewAnimator#flipTransition}, and can be driven directly by a gesture
+ * through {@link #setProgress(float)}.
+ *
+ * The 3D turn uses the views' own rotationY and camera distance, so the render
+ * thread does the projection and no Camera or Matrix is needed. Both faces stay
+ * laid out and the hidden one is only made transparent, so a frame never
+ * allocates, changes visibility or requests layout.
+ */
+public class CardFlipper implements ValueAnimator.AnimatorUpdateListener {
+
+    public interface OnFlipListener {
+        void onFlipped(boolean showingFront);
+    }
+
+    private static final long FLIP_DURATION = 400;
+    private static final float CAMERA_DISTANCE_DP = 8000;
+    private static final TimeInterpolator FLIP_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    private final View front;
+    private final View back;
+    // Always runs 0 to 1; the fraction is mapped onto startProgress..targetProgress
+    private final ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+    private float progress;
+    private float startProgress;
+    private float targetProgress;
+    private OnFlipListener onFlipListener;
+
+    public CardFlipper(View front, View back) {
+        this.front = front;
+        this.back = back;
+
+        float scale = front.getResources().getDisplayMetrics().density;
+        front.setCameraDistance(CAMERA_DISTANCE_DP * scale);
+        back.setCameraDistance(CAMERA_DISTANCE_DP * scale);
+        front.setVisibility(View.VISIBLE);
+        back.setVisibility(View.VISIBLE);
+
+        animator.setInterpolator(FLIP_INTERPOLATOR);
+        animator.addUpdateListener(this);
+        animator.addListener(new AnimatorListenerAdapter() {
+            private boolean cancelled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                cancelled = false;
+                // Rotating cached layers avoids redrawing the faces every frame
+                front.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                back.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                cancelled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                front.setLayerType(View.LAYER_TYPE_NONE, null);
+                back.setLayerType(View.LAYER_TYPE_NONE, null);
+                if (!cancelled && onFlipListener != null) {
+                    onFlipListener.onFlipped(isShowingFront());
+                }
+            }
+        });
+        applyProgress(0f);
+    }
+
+    public void setOnFlipListener(OnFlipListener onFlipListener) {
+        this.onFlipListener = onFlipListener;
+    }
+
+    // True when the card is showing, or turning towards, its front
+    public boolean isShowingFront() {
+        return animator.isRunning() ? targetProgress < 0.5f : progress < 0.5f;
+    }
+
+    public boolean isAnimating() {
+        return animator.isRunning();
+    }
+
+    public float getProgress() {
+        return progress;
+    }
+
+    // Animates to the other face; mid-flip this turns the card back from where it is
+    public void flip() {
+        animateTo(isShowingFront() ? 1f : 0f);
+    }
+
+    public void animateTo(boolean showFront) {
+        animateTo(showFront ? 0f : 1f);
+    }
+
+    // Finishes a gesture-driven flip on whichever face is closer
+    public void settle() {
+        animateTo(progress < 0.5f ? 0f : 1f);
+    }
+
+    // Jumps to a face without animating, e.g. when a row is rebound
+    public void reset(boolean showFront) {
+        animator.cancel();
+        applyProgress(showFront ? 0f : 1f);
+    }
+
+    // 0 shows the front, 1 the back. Stops any running animation so a gesture owns the card
+    public void setProgress(float progress) {
+        if (animator.isRunning()) {
+            animator.cancel();
+        }
+        applyProgress(Math.max(0f, Math.min(1f, progress)));
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        // getAnimatedFraction avoids boxing a Float on every frame
+        float fraction = animation.getAnimatedFraction();
+        applyProgress(startProgress + (targetProgress - startProgress) * fraction);
+    }
+
+    private void animateTo(float target) {
+        startProgress = progress;
+        targetProgress = target;
+        if (startProgress == targetProgress) {
+            animator.cancel();
+            return;
+        }
+        // A partial turn takes proportionally less time
+        animator.setDuration((long) (FLIP_DURATION * Math.abs(targetProgress - startProgress)));
+        if (animator.isRunning()) {
+            animator.setCurrentFraction(0f);
+        } else {
+            animator.start();
+        }
+    }
+
+    private void applyProgress(float progress) {
+        this.progress = progress;
+        float degrees = progress * 180f;
+        boolean backFacing = progress >= 0.5f;
+        front.setRotationY(degrees);
+        back.setRotationY(degrees - 180f);
+        front.setAlpha(backFacing ? 0f : 1f);
+        back.setAlpha(backFacing ? 1f : 0f);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.flashcards;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads question/answer pairs one row at a time from CSV, TSV or Anki
+ * "Notes in Plain Text" exports, so files of any size are parsed without
+ * being loaded into memory.
+ *
+ * Fields may be quoted with double quotes (doubled to escape) and then contain
+ * separators and line breaks. The first two columns are the question and
+ * answer. A {@code question,answer,...} header row may name {@code category}
+ * and {@code tags} columns, and Anki's {@code #tags column:} header names its
+ * tags column; tags are separated by spaces. Other columns are ignored. Anki's
+ * leading {@code #key:value} header lines are skipped, honouring {@code #separator:}.
+ */
+public class CardImportParser implements Closeable {
+
+    public enum Format {
+        CSV(','),
+        TSV('\t');
+
+        final char separator;
+
+        Format(char separator) {
+            this.separator = separator;
+        }
+
+        // Anki exports use .txt and are tab separated unless their header says otherwise
+        public static Format fromFileName(String fileName) {
+            String lower = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+            return lower.endsWith(".csv") ? CSV : TSV;
+        }
+
+        // For a picked document, whose URI says nothing about the file: the
+        // display name's extension, else the provider's MIME type. Either may be null
+        public static Format fromDocument(String displayName, String mimeType) {
+            if (displayName != null && displayName.lastIndexOf('.') > 0) {
+                return fromFileName(displayName);
+            }
+            String type = mimeType == null ? "" : mimeType.toLowerCase(Locale.ROOT);
+            return type.equals("text/csv") || type.equals("text/comma-separated-values") ? CSV : TSV;
+        }
+    }
+
+    private final BufferedReader reader;
+    private char separator;
+    // Columns past the answer, -1 when the file has none
+    private int categoryColumn = -1;
+    private int tagsColumn = -1;
+    private boolean atStart = true;
+    private int rowNumber;
+    private int skippedRows;
+
+    public CardImportParser(Reader reader, Format format) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.separator = format.separator;
+    }
+
+    // The next card, or null at the end of the input. Rows without both a
+    // question and an answer are counted in getSkippedRows() and left out.
+    public Flashcard next() throws IOException {
+        if (atStart) {
+            skipHeaderLines();
+        }
+        List<String> fields;
+        while ((fields = readRow()) != null) {
+            rowNumber++;
+            if (fields.size() < 2 || fields.get(0).trim().isEmpty() || fields.get(1).trim().isEmpty()) {
+                if (!(fields.size() == 1 && fields.get(0).isEmpty())) {
+                    skippedRows++;
+                }
+                continue;
+            }
+            if (rowNumber == 1 && isColumnHeader(fields)) {
+                readColumnNames(fields);
+                continue;
+            }
+            Flashcard card = new Flashcard(null, fields.get(0).trim(), fields.get(1).trim());
+            String category = column(fields, categoryColumn);
+            if (!category.isEmpty()) {
+                card.setCategory(category);
+            }
+            String tags = column(fields, tagsColumn);
+            if (!tags.isEmpty()) {
+                card.setTags(Arrays.asList(tags.split("\\s+")));
+            }
+            return card;
+        }
+        return null;
+    }
+
+    public int getSkippedRows() {
+        return skippedRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void skipHeaderLines() throws IOException {
+        atStart = false;
+        // Excel and Notepad start UTF-8 files with a byte order mark
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        while (true) {
+            // Only a single character is peeked, header lines can be any length
+            reader.mark(1);
+            if (reader.read() != '#') {
+                reader.reset();
+                return;
+            }
+            String rest = reader.readLine();
+            String line = rest == null ? "#" : "#" + rest;
+            String directive = line.toLowerCase(Locale.ROOT);
+            if (directive.startsWith("#separator:")) {
+                String value = directive.substring("#separator:".length()).trim();
+                if (value.equals("comma")) separator = ',';
+                else if (value.equals("semicolon")) separator = ';';
+                else if (value.equals("tab")) separator = '\t';
+            } else if (directive.startsWith("#tags column:")) {
+                try {
+                    tagsColumn = Integer.parseInt(directive.substring("#tags column:".length()).trim()) - 1;
+                } catch (NumberFormatException e) {
+                    // Not a column number, the tags stay ignored
+                }
+            }
+        }
+    }
+
+    private static boolean isColumnHeader(List<String> fields) {
+        return fields.get(0).trim().equalsIgnoreCase("question")
+                && fields.get(1).trim().equalsIgnoreCase("answer");
+    }
+
+    private void readColumnNames(List<String> fields) {
+        for (int i = 2; i < fields.size(); i++) {
+            String name = fields.get(i).trim();
+            if (name.equalsIgnoreCase("category")) categoryColumn = i;
+            else if (name.equalsIgnoreCase("tags")) tagsColumn = i;
+        }
+    }
+
+    // The trimmed field, or "" when the row has no such column
+    private static String column(List<String> fields, int index) {
+        return index >= 2 && index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    // One logical row; quoted fields may span several physical lines
+    private List<String> readRow() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (c != -1) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int nextChar = reader.read();
+                    if (nextChar == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (ch == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                break;
+            } else {
+                field.append(ch);
+                fieldStart = false;
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.flashcards;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The lowercased question and answer of many cards, stored once as UTF-8 in
+ * a single byte buffer and addressed by ordinal. A card costs its bytes plus
+ * three ints, instead of two String objects and their arrays, and matching a
+ * query reads the buffer in place without allocating. UTF-8 never matches
+ * part of one character against another, so comparing bytes finds exactly
+ * the matches comparing characters would.
+ *
+ * Removed cards leave their bytes behind until {@link #compact}, which
+ * slides the live ones down and renumbers them in order.
+ *
+ * Not thread safe.
+ */
+final class CardText {
+
+    private byte[] bytes = new byte[4096];
+    private int length;
+    // Per ordinal, as byte offsets: question is [starts, splits), answer is
+    // [splits, ends); starts is -1 once removed
+    private int[] starts = new int[64];
+    private int[] splits = new int[64];
+    private int[] ends = new int[64];
+    private int size;
+
+    // Stores a card's text and returns its ordinal
+    int add(String question, String answer) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            splits = Arrays.copyOf(splits, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        int ordinal = size++;
+        starts[ordinal] = length;
+        append(question);
+        splits[ordinal] = length;
+        append(answer);
+        ends[ordinal] = length;
+        return ordinal;
+    }
+
+    void remove(int ordinal) {
+        starts[ordinal] = -1;
+    }
+
+    boolean isRemoved(int ordinal) {
+        return starts[ordinal] < 0;
+    }
+
+    // Ordinals handed out, removed ones included
+    int size() {
+        return size;
+    }
+
+    // Whether the question or the answer contains the query, see encode
+    boolean contains(int ordinal, byte[] query) {
+        int start = starts[ordinal];
+        return start >= 0 && (indexOf(start, splits[ordinal], query) || indexOf(splits[ordinal], ends[ordinal], query));
+    }
+
+    // The raw buffer, valid until the next add or compact
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int questionStart(int ordinal) {
+        return starts[ordinal];
+    }
+
+    int answerStart(int ordinal) {
+        return splits[ordinal];
+    }
+
+    int end(int ordinal) {
+        return ends[ordinal];
+    }
+
+    void clear() {
+        size = 0;
+        length = 0;
+        if (bytes.length > 4096) {
+            bytes = new byte[4096];
+        }
+    }
+
+    // Bytes held, the removed cards' included
+    int length() {
+        return length;
+    }
+
+    // Drops removed cards. Returns each old ordinal's new one, -1 for removed cards
+    int[] compact() {
+        int[] remap = new int[size];
+        int live = 0;
+        int to = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int start = starts[ordinal];
+            if (start < 0) {
+                remap[ordinal] = -1;
+                continue;
+            }
+            int cardLength = ends[ordinal] - start;
+            System.arraycopy(bytes, start, bytes, to, cardLength);
+            starts[live] = to;
+            splits[live] = to + splits[ordinal] - start;
+            ends[live] = to + cardLength;
+            to += cardLength;
+            remap[ordinal] = live++;
+        }
+        size = live;
+        length = to;
+        // Give back a buffer left mostly empty by deletes
+        if (bytes.length > 4096 && bytes.length > 2 * length) {
+            bytes = Arrays.copyOf(bytes, Math.max(4096, length + length / 4));
+        }
+        return remap;
+    }
+
+    // Text in the form it is stored and matched in: normalized, then UTF-8
+    static byte[] encode(String text) {
+        return SearchIndex.normalize(text).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void append(String text) {
+        byte[] encoded = encode(text);
+        int needed = length + encoded.length;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length = needed;
+    }
+
+    // Whether [from, to) contains the query, which must not be empty
+    private boolean indexOf(int from, int to, byte[] query) {
+        byte first = query[0];
+        for (int i = from, last = to - query.length; i <= last; i++) {
+            if (bytes[i] != first) continue;
+            int j = 1;
+            while (j < query.length && bytes[i + j] == query[j]) {
+                j++;
+            }
+            if (j == query.length) return true;
+        }
+        return false;
+    }
+}
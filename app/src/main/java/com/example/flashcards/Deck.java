@@ -0,0 +1,201 @@
+package com.example.flashcards;
+
+import android.content.Context;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A named group of cards, the unit the app loads and listens to. Each deck
+ * has a small summary document under {@code users/{uid}/decks} holding its
+ * name and aggregates, the card count and the count per category, so listing
+ * decks or showing counts costs one read per deck instead of one per card. A
+ * deck's cards live in its own sub-collection, except the default deck, whose
+ * cards stay in the {@code users/{uid}/flashcards} collection used before
+ * there were decks.
+ *
+ * Local state (cached cards, queued edits, review state) is keyed by
+ * {@link #key}, which for the default deck is just the user id so data
+ * cached before decks existed still matches.
+ */
+public class Deck {
+
+    public static final String DEFAULT_ID = "default";
+    public static final String DEFAULT_NAME = "My Flashcards";
+    private static final String PREFS = "decks";
+
+    private String id;
+    private String name;
+    private long cardCount;
+    // Cards per category, kept by the same writes as cardCount
+    private Map<String, Long> categoryCounts = new HashMap<>();
+    private long updatedAt;
+
+    public Deck() {
+        // Needed for Firestore
+    }
+
+    public Deck(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCardCount() {
+        return cardCount;
+    }
+
+    public void setCardCount(long cardCount) {
+        this.cardCount = cardCount;
+    }
+
+    public Map<String, Long> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public void setCategoryCounts(Map<String, Long> categoryCounts) {
+        this.categoryCounts = categoryCounts == null ? new HashMap<>() : categoryCounts;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public static String key(String userId, String deckId) {
+        return DEFAULT_ID.equals(deckId) ? userId : userId + "/" + deckId;
+    }
+
+    public static String userIdOf(String key) {
+        int slash = key.indexOf('/');
+        return slash < 0 ? key : key.substring(0, slash);
+    }
+
+    public static String deckIdOf(String key) {
+        int slash = key.indexOf('/');
+        return slash < 0 ? DEFAULT_ID : key.substring(slash + 1);
+    }
+
+    public static CollectionReference decks(FirebaseFirestore db, String userId) {
+        return db.collection("users").document(userId).collection("decks");
+    }
+
+    public static DocumentReference summary(FirebaseFirestore db, String key) {
+        return decks(db, userIdOf(key)).document(deckIdOf(key));
+    }
+
+    public static CollectionReference cards(FirebaseFirestore db, String key) {
+        String userId = userIdOf(key);
+        String deckId = deckIdOf(key);
+        if (DEFAULT_ID.equals(deckId)) {
+            return db.collection("users").document(userId).collection("flashcards");
+        }
+        return decks(db, userId).document(deckId).collection("flashcards");
+    }
+
+    // Counts the deck's cards, and the cards in each of its categories, with
+    // count() aggregations, which are billed like one read per thousand cards,
+    // and stores the results in the summary. Categories the summary does not
+    // list yet are found first, see categories. For decks whose cards were
+    // written without counting: imports, and default decks from before there
+    // were summaries. Writes racing with a recount can leave the counts off,
+    // so card edits never rely on it
+    public static Task<Long> recount(FirebaseFirestore db, String key) {
+        CollectionReference cards = cards(db, key);
+        Task<DocumentSnapshot> existingTask = summary(db, key).get(Source.SERVER);
+        Task<List<String>> foundTask = categories(cards);
+        return Tasks.whenAllSuccess(existingTask, foundTask).onSuccessTask(ignored -> {
+            DocumentSnapshot existing = existingTask.getResult();
+            Deck deck = existing.exists() ? existing.toObject(Deck.class) : new Deck();
+            // Listed categories no card has any more are counted too, and so reset to 0
+            Set<String> distinct = new TreeSet<>(deck.getCategoryCounts().keySet());
+            distinct.addAll(foundTask.getResult());
+            List<String> categories = new ArrayList<>(distinct);
+            List<Task<AggregateQuerySnapshot>> counts = new ArrayList<>();
+            counts.add(cards.count().get(AggregateSource.SERVER));
+            for (String category : categories) {
+                counts.add(cards.whereEqualTo("category", category).count().get(AggregateSource.SERVER));
+            }
+            return Tasks.whenAllSuccess(counts).onSuccessTask(results -> {
+                long count = ((AggregateQuerySnapshot) results.get(0)).getCount();
+                Map<String, Object> categoryCounts = new HashMap<>();
+                for (int i = 0; i < categories.size(); i++) {
+                    categoryCounts.put(categories.get(i), ((AggregateQuerySnapshot) results.get(i + 1)).getCount());
+                }
+                Map<String, Object> summary = new HashMap<>();
+                summary.put("cardCount", count);
+                summary.put("categoryCounts", categoryCounts);
+                // Users from before decks have no summary for their default deck yet
+                if (deck.getName() == null && DEFAULT_ID.equals(deckIdOf(key))) {
+                    summary.put("name", DEFAULT_NAME);
+                }
+                return summary(db, key).set(summary, SetOptions.merge()).continueWith(task -> count);
+            });
+        });
+    }
+
+    // The deck's distinct categories in order. Firestore has no distinct query,
+    // so each step reads the first card whose category sorts after the last
+    // one found: one read per category rather than one per card
+    static Task<List<String>> categories(CollectionReference cards) {
+        return categoriesAfter(cards, "", new ArrayList<>());
+    }
+
+    private static Task<List<String>> categoriesAfter(CollectionReference cards, String after, List<String> found) {
+        return cards.whereGreaterThan("category", after).orderBy("category").limit(1).get(Source.SERVER)
+                .onSuccessTask(snapshot -> {
+                    if (snapshot.isEmpty()) {
+                        return Tasks.forResult(found);
+                    }
+                    String category = snapshot.getDocuments().get(0).getString("category");
+                    found.add(category);
+                    return categoriesAfter(cards, category, found);
+                });
+    }
+
+    // The deck the list last showed for this user
+    public static String openDeckId(Context context, String userId) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getString(userId, DEFAULT_ID);
+    }
+
+    public static void setOpenDeckId(Context context, String userId, String deckId) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().putString(userId, deckId).apply();
+    }
+
+    public static String openDeckKey(Context context, String userId) {
+        return key(userId, openDeckId(context, userId));
+    }
+}
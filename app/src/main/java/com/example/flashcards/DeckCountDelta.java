@@ -0,0 +1,51 @@
+package com.example.flashcards;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * How a batch of card writes changes a deck's aggregate counts: the number
+ * of cards and the number in each category. Built from each card's state on
+ * the server before and after the write, so edits that move a card between
+ * categories, or recreate a card another device deleted, count correctly.
+ */
+public class DeckCountDelta {
+
+    private long cards;
+    private final Map<String, Long> categories = new HashMap<>();
+
+    // existed/exists say whether the card is on the server before and after
+    public void add(boolean existed, String oldCategory, boolean exists, String newCategory) {
+        if (existed == exists && (!exists || Objects.equals(oldCategory, newCategory))) {
+            return;
+        }
+        if (existed) {
+            cards--;
+            if (oldCategory != null) categories.merge(oldCategory, -1L, Long::sum);
+        }
+        if (exists) {
+            cards++;
+            if (newCategory != null) categories.merge(newCategory, 1L, Long::sum);
+        }
+    }
+
+    public long getCards() {
+        return cards;
+    }
+
+    // Categories whose count changes; moves that cancel out are left out
+    public Map<String, Long> getCategories() {
+        Map<String, Long> changed = new HashMap<>();
+        for (Map.Entry<String, Long> entry : categories.entrySet()) {
+            if (entry.getValue() != 0) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return cards == 0 && getCategories().isEmpty();
+    }
+}
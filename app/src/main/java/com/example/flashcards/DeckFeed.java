@@ -0,0 +1,179 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cards and summary of one deck, held in memory for every screen that
+ * shows them. {@link FlashcardRepository} keeps one feed per deck for the
+ * life of the process, so a screen that comes back, or is recreated, finds
+ * the cards already there.
+ *
+ * Screens observe the feed and get each change once it is applied. The
+ * feed's connection to the server is counted: the first {@link #start}
+ * connects its {@link Source}, later ones only add to the count, and the
+ * last {@link #stop} disconnects it, so however many times screens resume
+ * and pause there is at most one connection per deck.
+ *
+ * Call everything on the main thread.
+ */
+public class DeckFeed {
+
+    public interface Observer {
+        // Cards that were added or edited and ids that were removed. A new
+        // observer is first told about every card already in the feed
+        void onCardsChanged(List<Flashcard> changed, List<String> removedIds);
+        void onSummaryChanged(Deck summary);
+        void onError(Exception e);
+    }
+
+    // Delivers the deck's cards and summary into the feed while connected
+    public interface Source {
+        Subscription connect(DeckFeed feed);
+    }
+
+    public interface Subscription {
+        void remove();
+    }
+
+    private final String deckKey;
+    private final Source source;
+    private final FlashcardStore store = new FlashcardStore();
+    private final List<Observer> observers = new ArrayList<>();
+    private Subscription connection;
+    private int starts;
+    private boolean loaded;
+    private Deck summary;
+
+    public DeckFeed(String deckKey, Source source) {
+        this.deckKey = deckKey;
+        this.source = source;
+    }
+
+    public String getDeckKey() {
+        return deckKey;
+    }
+
+    public Subscription observe(Observer observer) {
+        observers.add(observer);
+        if (!store.isEmpty() || loaded) {
+            observer.onCardsChanged(new ArrayList<>(store.getAll()), new ArrayList<>());
+        }
+        if (summary != null) {
+            observer.onSummaryChanged(summary);
+        }
+        return () -> observers.remove(observer);
+    }
+
+    public boolean hasObservers() {
+        return !observers.isEmpty();
+    }
+
+    public void start() {
+        if (starts++ == 0) {
+            connection = source.connect(this);
+        }
+    }
+
+    public void stop() {
+        if (starts == 0) return;
+        if (--starts == 0) {
+            connection.remove();
+            connection = null;
+        }
+    }
+
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    // True once the server has delivered the first cards, even if there were none
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Cards from the server. Returns the ones that actually changed; observers
+    // hear about nothing else, except the first delivery, which is always passed
+    // on so screens can tell an empty deck from one still loading
+    public List<Flashcard> apply(List<Flashcard> upserts, List<String> removedIds) {
+        boolean first = !loaded;
+        loaded = true;
+        return update(upserts, removedIds, first);
+    }
+
+    // An edit made on this device before the server has it
+    public List<Flashcard> applyLocal(List<Flashcard> upserts, List<String> removedIds) {
+        return update(upserts, removedIds, false);
+    }
+
+    // Cards from the on-device cache; anything the server already delivered is newer
+    public List<Flashcard> applyCached(List<Flashcard> cached) {
+        List<Flashcard> missing = new ArrayList<>();
+        for (Flashcard flashcard : cached) {
+            if (store.get(flashcard.getId()) == null) {
+                missing.add(flashcard);
+            }
+        }
+        return update(missing, new ArrayList<>(), false);
+    }
+
+    public void setSummary(Deck summary) {
+        this.summary = summary;
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onSummaryChanged(summary);
+        }
+    }
+
+    public Deck getSummary() {
+        return summary;
+    }
+
+    public void reportError(Exception e) {
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onError(e);
+        }
+    }
+
+    public Flashcard get(String id) {
+        return store.get(id);
+    }
+
+    // Read-only live view in id order
+    public List<Flashcard> getAll() {
+        return store.getAll();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public boolean isEmpty() {
+        return store.isEmpty();
+    }
+
+    // Ids in (afterId, lastId]; a null bound is open
+    public List<String> idsBetween(String afterId, String lastId) {
+        return store.idsBetween(afterId, lastId);
+    }
+
+    private List<Flashcard> update(List<Flashcard> upserts, List<String> removedIds, boolean notifyEmpty) {
+        List<Flashcard> changed = new ArrayList<>(upserts.size());
+        for (Flashcard flashcard : upserts) {
+            if (store.upsert(flashcard)) {
+                changed.add(flashcard);
+            }
+        }
+        List<String> removed = new ArrayList<>(removedIds.size());
+        for (String id : removedIds) {
+            if (store.remove(id)) {
+                removed.add(id);
+            }
+        }
+        if (!changed.isEmpty() || !removed.isEmpty() || notifyEmpty) {
+            for (Observer observer : new ArrayList<>(observers)) {
+                observer.onCardsChanged(changed, removed);
+            }
+        }
+        return changed;
+    }
+}
@@ -1,77 +1,90 @@
 package com.example.flashcards;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.android.gms.tasks.OnFailureListener;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Firestore queries and writers that work on a deck's cards in bulk: imports,
+ * exports and filtered loads. Used through {@link FlashcardRepository}, which
+ * passes in its own {@link FirebaseFirestore}.
+ */
 public class FirestoreHelper {
-    private FirebaseFirestore db;
-    private FirebaseAuth auth;
+    private final FirebaseFirestore db;
 
-    public FirestoreHelper() {
-        db = FirebaseFirestore.getInstance(); // Get Firestore instance
-        auth = FirebaseAuth.getInstance(); // Get FirebaseAuth instance
+    public FirestoreHelper(FirebaseFirestore db) {
+        this.db = db;
     }
 
-    // Add a flashcard
-    public void addFlashcard(String question, String answer, String category) {
-        String userId = auth.getCurrentUser().getUid(); // Get the current user ID
-        CollectionReference flashcardsRef = db.collection("users")
-                .document(userId)
-                .collection("flashcards");
-
-        // Create a map to store flashcard data
-        Map<String, Object> flashcard = new HashMap<>();
-        flashcard.put("question", question);
-        flashcard.put("answer", answer);
-        flashcard.put("category", category);
-        flashcard.put("createdAt", System.currentTimeMillis()); // Timestamp when card is created
+    // Writes imported cards into a deck (see Deck.key) one WriteBatch per call.
+    // Document ids come from the import id and the card's position in the file,
+    // so a batch replayed when an import is resumed overwrites its earlier copy
+    // instead of duplicating it. For the same reason the deck's card count is
+    // not incremented here; recount the deck once the import is done
+    public BulkImporter.BatchWriter importBatchWriter(String deckKey, String importId) {
+        CollectionReference flashcardsRef = Deck.cards(db, deckKey);
+        String userId = Deck.userIdOf(deckKey);
 
-        // Add the flashcard to Firestore
-        flashcardsRef.add(flashcard)
-                .addOnSuccessListener(documentReference -> {
-                    // Flashcard successfully added
-                    System.out.println("Flashcard added with ID: " + documentReference.getId());
-                })
-                .addOnFailureListener(e -> {
-                    // Error while adding flashcard
-                    System.out.println("Error adding flashcard: " + e.getMessage());
-                });
+        return (firstIndex, cards, done) -> {
+            WriteBatch batch = db.batch();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < cards.size(); i++) {
+                Flashcard card = cards.get(i);
+                Map<String, Object> flashcard = new HashMap<>();
+                flashcard.put("question", card.getQuestion());
+                flashcard.put("answer", card.getAnswer());
+                if (card.getCategory() != null) {
+                    flashcard.put("category", card.getCategory());
+                }
+                if (!card.getTags().isEmpty()) {
+                    flashcard.put("tags", card.getTags());
+                }
+                // The same shape FlashcardSync writes
+                flashcard.put("userId", userId);
+                flashcard.put("createdAt", now);
+                flashcard.put("updatedAt", now);
+                batch.set(flashcardsRef.document(importId + "-" + (firstIndex + i)), flashcard);
+            }
+            // Completion runs on Firestore's callback thread, the importer is thread safe
+            batch.commit().addOnCompleteListener(Runnable::run, task -> done.onComplete(task.getException()));
+        };
     }
 
-    // Get all flashcards for the current user
-    public void getFlashcards() {
-        String userId = auth.getCurrentUser().getUid(); // Get the current user ID
-        CollectionReference flashcardsRef = db.collection("users")
-                .document(userId)
-                .collection("flashcards");
+    // Pages through a deck's flashcards in document id order with a startAfter
+    // cursor, for CardExporter. Blocks, so call it off the main thread
+    public CardExporter.PageSource exportPageSource(String deckKey) {
+        CollectionReference flashcardsRef = Deck.cards(db, deckKey);
 
-        // Fetch all flashcards, ordered by creation date
-        flashcardsRef.orderBy("createdAt", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (DocumentSnapshot document : queryDocumentSnapshots) {
-                        String question = document.getString("question");
-                        String answer = document.getString("answer");
-                        String category = document.getString("category");
+        return (afterId, limit) -> {
+            Query query = flashcardsRef.orderBy(FieldPath.documentId()).limit(limit);
+            if (afterId != null) {
+                query = query.startAfter(afterId);
+            }
+            QuerySnapshot snapshot = Tasks.await(query.get());
+            List<Flashcard> page = new ArrayList<>(snapshot.size());
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                // Every exported field, read without reflection
+                page.add(FlashcardCodec.decode(document));
+            }
+            return page;
+        };
+    }
 
-                        // Log flashcard data (you can update UI here)
-                        System.out.println("Question: " + question);
-                        System.out.println("Answer: " + answer);
-                        System.out.println("Category: " + category);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Error fetching flashcards
-                    System.out.println("Error getting flashcards: " + e.getMessage());
-                });
+    // Only the cards a filter matches. Firestore indexes every field on its
+    // own, so neither query needs a composite index
+    public static Query filteredQuery(CollectionReference flashcardsRef, CardFilter filter) {
+        return filter.field == CardFilter.Field.CATEGORY
+                ? flashcardsRef.whereEqualTo("category", filter.value)
+                : flashcardsRef.whereArrayContains("tags", filter.value);
     }
 }
@@ -1,10 +1,20 @@
 package com.example.flashcards;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 
 public class Flashcard {
+    // Flags returned by changedFields
+    public static final int QUESTION_CHANGED = 1;
+    public static final int ANSWER_CHANGED = 1 << 1;
+
     private String id;     // Firestore document ID
     private String question;
     private String answer;
+    private String category;  // Optional, at most one per card
+    private List<String> tags = Collections.emptyList();  // Shared between cards, see LabelPool
+    private long updatedAt;  // Client time of the last write, used for incremental sync
 
     public Flashcard() {
         // Needed for Firestore
@@ -40,5 +50,44 @@ public class Flashcard {
     public void setAnswer(String answer) {
         this.answer = answer;
     }
-}
 
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = LabelPool.intern(category);
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags == null ? Collections.emptyList() : LabelPool.intern(tags);
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // True when both cards would render, and filter, identically
+    public boolean hasSameContent(Flashcard other) {
+        return Objects.equals(question, other.question)
+                && Objects.equals(answer, other.answer)
+                && Objects.equals(category, other.category)
+                && tags.equals(other.tags);
+    }
+
+    // Which of the rendered fields differ from another version of this card
+    public int changedFields(Flashcard other) {
+        int changed = 0;
+        if (!Objects.equals(question, other.question)) changed |= QUESTION_CHANGED;
+        if (!Objects.equals(answer, other.answer)) changed |= ANSWER_CHANGED;
+        return changed;
+    }
+}
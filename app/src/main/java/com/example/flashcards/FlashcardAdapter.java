@@ -1,54 +1,192 @@
 package com.example.flashcards;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
-public class FlashcardAdapter extends RecyclerView.Adapter<FlashcardAdapter.FlashcardViewHolder> {
+public class FlashcardAdapter extends ListAdapter<Flashcard, FlashcardAdapter.FlashcardViewHolder> {
+
+    // Identity is the Firestore document id, content is what the row renders
+    static final DiffUtil.ItemCallback<Flashcard> DIFF_CALLBACK = new DiffUtil.ItemCallback<Flashcard>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return oldItem == newItem || oldItem.hasSameContent(newItem);
+        }
+
+        // Which text views need new text, so the row is updated in place
+        @Override
+        public Object getChangePayload(@NonNull Flashcard oldItem, @NonNull Flashcard newItem) {
+            return oldItem.changedFields(newItem);
+        }
+    };
+
+    // Shared by every adapter instance so diffs never run on the main thread
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+    // Measures card text ahead of the rows that will show it
+    private static final Executor TEXT_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final int TEXT_CACHE_SIZE = 200;
+    // Rows past the screen edge whose text is measured while scrolling
+    private static final int TEXT_PREFETCH_ROWS = 10;
 
     private Context context;
-    private List<Flashcard> flashcardList;
     private OnFlashcardClickListener listener;
     private RecyclerView recyclerView;
+    private final StableIds stableIds = new StableIds();
+    // Cards removed from the deck whose ids are kept until no list shows them
+    private final Set<String> removedIds = new HashSet<>();
+    private final TextLayoutCache textCache = new TextLayoutCache(TEXT_CACHE_SIZE, TEXT_EXECUTOR,
+            new Handler(Looper.getMainLooper())::post);
+    private final RecyclerView.OnScrollListener textPrefetcher = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            prefetchText(dy);
+        }
+    };
 
     public interface OnFlashcardClickListener {
         void onFlashcardClick(int position);
         void onFlashcardLongClick(int position);
     }
 
-    public FlashcardAdapter(Context context, List<Flashcard> flashcardList, OnFlashcardClickListener listener) {
+    public FlashcardAdapter(Context context, OnFlashcardClickListener listener) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                .setBackgroundThreadExecutor(DIFF_EXECUTOR)
+                .build());
         this.context = context;
-        this.flashcardList = flashcardList;
         this.listener = listener;
+        // Lets RecyclerView keep a card's row, and its flip, across list updates
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getId());
     }
 
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
         this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(textPrefetcher);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(textPrefetcher);
+        this.recyclerView = null;
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<Flashcard> previousList, @NonNull List<Flashcard> currentList) {
+        // A list diffed before the removal may still show the card
+        if (!removedIds.isEmpty()) {
+            Set<String> stillListed = new HashSet<>();
+            for (Flashcard flashcard : currentList) {
+                if (removedIds.contains(flashcard.getId())) stillListed.add(flashcard.getId());
+            }
+            for (Iterator<String> iterator = removedIds.iterator(); iterator.hasNext(); ) {
+                String id = iterator.next();
+                if (!stillListed.contains(id)) {
+                    stableIds.forget(id);
+                    iterator.remove();
+                }
+            }
+        }
+        // Have the rows just below the screen ready before the first scroll
+        if (recyclerView != null) {
+            recyclerView.post(() -> prefetchText(1));
+        }
     }
 
     @NonNull
     @Override
     public FlashcardViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_flashcard, parent, false);
-        return new FlashcardViewHolder(view, listener);
+        FlashcardViewHolder holder = new FlashcardViewHolder(view, listener);
+        if (!textCache.hasParams()) {
+            textCache.setParams(holder.tvQuestion);
+            prefetchText(1);
+        }
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull FlashcardViewHolder holder, int position) {
-        Flashcard flashcard = flashcardList.get(position);
-        holder.bind(flashcard);
+        Flashcard flashcard = getItem(position);
+        holder.bind(flashcard, textCache);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull FlashcardViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // Several edits may land before the row is rebound
+        int changed = 0;
+        for (Object payload : payloads) {
+            changed |= (Integer) payload;
+        }
+        holder.update(getItem(position), textCache, changed);
     }
 
     @Override
-    public int getItemCount() {
-        return flashcardList.size();
+    public void onViewRecycled(@NonNull FlashcardViewHolder holder) {
+        holder.unbind();
+    }
+
+    // Drops the stable id of a card deleted from the deck. Cards a search or
+    // filter hides keep theirs, so their rows come back as they were
+    public void forgetCard(String id) {
+        removedIds.add(id);
+        textCache.invalidate(id);
+    }
+
+    // Drops measured text for a card that was edited or deleted
+    public void invalidateText(String id) {
+        textCache.invalidate(id);
+    }
+
+    // Measures the text of the rows about to scroll into view, on the side we are moving towards
+    private void prefetchText(int dy) {
+        if (recyclerView == null || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+
+        int from = dy >= 0 ? last + 1 : Math.max(0, first - TEXT_PREFETCH_ROWS);
+        int to = dy >= 0 ? Math.min(getItemCount(), last + 1 + TEXT_PREFETCH_ROWS) : first;
+        if (from < to) {
+            textCache.prefetch(getCurrentList().subList(from, to));
+        }
+    }
+
+    public Flashcard getFlashcard(int position) {
+        return getItem(position);
     }
 
     public void flipCard(int position) {
@@ -61,24 +199,24 @@ public class FlashcardAdapter extends RecyclerView.Adapter<FlashcardAdapter.Flas
     public static class FlashcardViewHolder extends RecyclerView.ViewHolder {
         TextView tvQuestion, tvAnswer;
         View cardFront, cardBack;
-        boolean isFrontVisible = true;
+        private final ViewStub cardBackStub;
         private OnFlashcardClickListener listener;
-        private boolean isAnimating = false;
+        // Created along with the back face, the first time the row is flipped
+        CardFlipper flipper;
+        private Flashcard flashcard;
+        private TextLayoutCache textCache;
 
         public FlashcardViewHolder(@NonNull View itemView, OnFlashcardClickListener listener) {
             super(itemView);
             this.listener = listener;
             tvQuestion = itemView.findViewById(R.id.tvQuestion);
-            tvAnswer = itemView.findViewById(R.id.tvAnswer);
             cardFront = itemView.findViewById(R.id.cardFront);
-            cardBack = itemView.findViewById(R.id.cardBack);
+            cardBackStub = itemView.findViewById(R.id.cardBackStub);
 
             itemView.setOnClickListener(v -> {
-                if (!isAnimating) {
-                    flipCard();
-                    if (this.listener != null) {
-                        this.listener.onFlashcardClick(getAdapterPosition());
-                    }
+                flipCard();
+                if (this.listener != null) {
+                    this.listener.onFlashcardClick(getAdapterPosition());
                 }
             });
 
@@ -91,70 +229,58 @@ public class FlashcardAdapter extends RecyclerView.Adapter<FlashcardAdapter.Flas
             });
         }
 
-        public void bind(Flashcard flashcard) {
-            tvQuestion.setText(flashcard.getQuestion());
-            tvAnswer.setText(flashcard.getAnswer());
-            resetToFront();
+        // Uses text measured in the background when the cache has it. Rebinding
+        // the card already shown leaves the flip where it is
+        public void bind(Flashcard flashcard, TextLayoutCache textCache) {
+            boolean sameCard = this.flashcard != null && this.flashcard.getId().equals(flashcard.getId());
+            this.flashcard = flashcard;
+            this.textCache = textCache;
+            textCache.bind(flashcard, tvQuestion, tvAnswer);
+            if (!sameCard) {
+                resetToFront();
+            }
+        }
+
+        // Sets only the text that changed, keeping the flip and any running animation
+        void update(Flashcard flashcard, TextLayoutCache textCache, int changedFields) {
+            this.flashcard = flashcard;
+            this.textCache = textCache;
+            if ((changedFields & Flashcard.QUESTION_CHANGED) != 0) {
+                textCache.bindQuestion(flashcard, tvQuestion);
+            }
+            if ((changedFields & Flashcard.ANSWER_CHANGED) != 0 && tvAnswer != null) {
+                textCache.bindAnswer(flashcard, tvAnswer);
+            }
+        }
+
+        // The row is back in the pool and will next show some other card
+        void unbind() {
+            flashcard = null;
         }
 
         private void resetToFront() {
-            cardFront.setVisibility(View.VISIBLE);
+            if (flipper == null) return;
+            flipper.reset(true);
+            // Until it is flipped again the row is sized by its question alone
             cardBack.setVisibility(View.GONE);
-            cardFront.setRotationY(0f);
-            cardBack.setRotationY(0f);
-            isFrontVisible = true;
-            isAnimating = false;
         }
 
+        // A flip requested mid-animation turns the card back around from where it is
         public void flipCard() {
-            if (isAnimating) return;
-
-            isAnimating = true;
-            float scale = itemView.getContext().getResources().getDisplayMetrics().density;
-            cardFront.setCameraDistance(8000 * scale);
-            cardBack.setCameraDistance(8000 * scale);
-
-            if (isFrontVisible) {
-                // Flip from front to back
-                cardFront.animate()
-                        .rotationY(90f)
-                        .setDuration(200)
-                        .withEndAction(() -> {
-                            cardFront.setVisibility(View.GONE);
-                            cardFront.setRotationY(0f);
-                            cardBack.setVisibility(View.VISIBLE);
-                            cardBack.setRotationY(-90f);
-                            cardBack.animate()
-                                    .rotationY(0f)
-                                    .setDuration(200)
-                                    .withEndAction(() -> {
-                                        isFrontVisible = false;
-                                        isAnimating = false;
-                                    })
-                                    .start();
-                        })
-                        .start();
-            } else {
-                // Flip from back to front
-                cardBack.animate()
-                        .rotationY(90f)
-                        .setDuration(200)
-                        .withEndAction(() -> {
-                            cardBack.setVisibility(View.GONE);
-                            cardBack.setRotationY(0f);
-                            cardFront.setVisibility(View.VISIBLE);
-                            cardFront.setRotationY(-90f);
-                            cardFront.animate()
-                                    .rotationY(0f)
-                                    .setDuration(200)
-                                    .withEndAction(() -> {
-                                        isFrontVisible = true;
-                                        isAnimating = false;
-                                    })
-                                    .start();
-                        })
-                        .start();
+            inflateBack();
+            cardBack.setVisibility(View.VISIBLE);
+            flipper.flip();
+        }
+
+        // Builds the back face from its stub and fills in the bound card's answer
+        void inflateBack() {
+            if (flipper != null) return;
+            cardBack = cardBackStub.inflate();
+            tvAnswer = cardBack.findViewById(R.id.tvAnswer);
+            if (flashcard != null) {
+                textCache.bindAnswer(flashcard, tvAnswer);
             }
+            flipper = new CardFlipper(cardFront, cardBack);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,270 @@
+package com.example.flashcards;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-device copy of each deck's flashcards so the list can be drawn before
+ * Firestore answers. Also remembers the newest {@code updatedAt} seen per
+ * deck, which lets a launch ask Firestore only for cards edited since then,
+ * holds the edits {@link FlashcardSync} has not written to Firestore yet and
+ * each card's {@link ReviewState}, which only lives on this device.
+ *
+ * Rows are keyed by {@link Deck#key}, stored in the user_id columns; the
+ * default deck's key is the bare user id, so rows from before decks match it.
+ *
+ * All methods hit the disk; call them off the main thread.
+ */
+public class FlashcardCache extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "flashcard_cache.db";
+    // Bump when the schema changes and add the migration to onUpgrade
+    private static final int DATABASE_VERSION = 4;
+
+    private static final String TABLE_CARDS = "cards";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String TABLE_PENDING_WRITES = "pending_writes";
+    private static final String CREATE_PENDING_WRITES = "CREATE TABLE " + TABLE_PENDING_WRITES + " ("
+            + "user_id TEXT NOT NULL, "
+            + "id TEXT NOT NULL, "
+            + "is_delete INTEGER NOT NULL, "
+            + "question TEXT, "
+            + "answer TEXT, "
+            + "category TEXT, "
+            + "tags TEXT, "
+            + "updated_at INTEGER NOT NULL DEFAULT 0, "
+            + "created INTEGER NOT NULL, "
+            + "PRIMARY KEY (user_id, id))";
+    private static final String TABLE_REVIEW_STATE = "review_state";
+    private static final String CREATE_REVIEW_STATE = "CREATE TABLE " + TABLE_REVIEW_STATE + " ("
+            + "user_id TEXT NOT NULL, "
+            + "id TEXT NOT NULL, "
+            + "interval_days REAL NOT NULL, "
+            + "ease REAL NOT NULL, "
+            + "due INTEGER NOT NULL, "
+            + "lapses INTEGER NOT NULL, "
+            + "repetitions INTEGER NOT NULL, "
+            + "last_reviewed INTEGER NOT NULL, "
+            + "PRIMARY KEY (user_id, id))";
+
+    private static FlashcardCache instance;
+
+    public static synchronized FlashcardCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new FlashcardCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private FlashcardCache(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_CARDS + " ("
+                + "user_id TEXT NOT NULL, "
+                + "id TEXT NOT NULL, "
+                + "question TEXT, "
+                + "answer TEXT, "
+                + "category TEXT, "
+                + "tags TEXT, "
+                + "updated_at INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (user_id, id))");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + "user_id TEXT PRIMARY KEY, "
+                + "last_synced INTEGER NOT NULL)");
+        db.execSQL(CREATE_PENDING_WRITES);
+        db.execSQL(CREATE_REVIEW_STATE);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Later versions only add tables and columns
+        if (oldVersion < 2) {
+            db.execSQL(CREATE_PENDING_WRITES);
+        }
+        if (oldVersion < 3) {
+            db.execSQL(CREATE_REVIEW_STATE);
+        }
+        if (oldVersion < 4) {
+            db.execSQL("ALTER TABLE " + TABLE_CARDS + " ADD COLUMN category TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_CARDS + " ADD COLUMN tags TEXT");
+            // A pending_writes table created above already has them
+            if (oldVersion >= 2) {
+                db.execSQL("ALTER TABLE " + TABLE_PENDING_WRITES + " ADD COLUMN category TEXT");
+                db.execSQL("ALTER TABLE " + TABLE_PENDING_WRITES + " ADD COLUMN tags TEXT");
+            }
+        }
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // An unknown newer schema is simply dropped and rebuilt
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CARDS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_PENDING_WRITES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_REVIEW_STATE);
+        onCreate(db);
+    }
+
+    // Cards in document id order, the same order the list shows
+    public List<Flashcard> load(String userId) {
+        return load(userId, null);
+    }
+
+    // The first cards in list order, enough to draw the first screen
+    public List<Flashcard> loadFirst(String userId, int count) {
+        return load(userId, String.valueOf(count));
+    }
+
+    private List<Flashcard> load(String userId, String limit) {
+        List<Flashcard> flashcards = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_CARDS,
+                new String[]{"id", "question", "answer", "updated_at", "category", "tags"},
+                "user_id = ?", new String[]{userId}, null, null, "id", limit)) {
+            while (cursor.moveToNext()) {
+                Flashcard flashcard = new Flashcard(cursor.getString(0), cursor.getString(1), cursor.getString(2));
+                flashcard.setUpdatedAt(cursor.getLong(3));
+                flashcard.setCategory(cursor.getString(4));
+                flashcard.setTags(TagIndex.parseTags(cursor.getString(5)));
+                flashcards.add(flashcard);
+            }
+        }
+        return flashcards;
+    }
+
+    public void write(String userId, List<Flashcard> upserts, List<String> removedIds) {
+        if (upserts.isEmpty() && removedIds.isEmpty()) return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (Flashcard flashcard : upserts) {
+                values.clear();
+                values.put("user_id", userId);
+                values.put("id", flashcard.getId());
+                values.put("question", flashcard.getQuestion());
+                values.put("answer", flashcard.getAnswer());
+                values.put("category", flashcard.getCategory());
+                values.put("tags", TagIndex.joinTags(flashcard.getTags()));
+                values.put("updated_at", flashcard.getUpdatedAt());
+                db.insertWithOnConflict(TABLE_CARDS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (String id : removedIds) {
+                db.delete(TABLE_CARDS, "user_id = ? AND id = ?", new String[]{userId, id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Newest updatedAt already reconciled for this user, 0 if never synced
+    public long getLastSynced(String userId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE,
+                new String[]{"last_synced"}, "user_id = ?", new String[]{userId},
+                null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    public void setLastSynced(String userId, long lastSynced) {
+        ContentValues values = new ContentValues();
+        values.put("user_id", userId);
+        values.put("last_synced", lastSynced);
+        getWritableDatabase().insertWithOnConflict(TABLE_SYNC_STATE, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // Unsent edits, oldest first. Replacing a row gives it a new rowid, so the
+    // order is that of each card's latest edit
+    public List<MutationQueue.Mutation> loadPendingWrites(String userId) {
+        List<MutationQueue.Mutation> mutations = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_PENDING_WRITES,
+                new String[]{"id", "is_delete", "question", "answer", "category", "tags", "updated_at", "created"},
+                "user_id = ?", new String[]{userId}, null, null, "rowid")) {
+            while (cursor.moveToNext()) {
+                mutations.add(new MutationQueue.Mutation(cursor.getString(0), cursor.getInt(1) != 0,
+                        cursor.getString(2), cursor.getString(3), cursor.getString(4),
+                        TagIndex.parseTags(cursor.getString(5)), cursor.getLong(6), cursor.getInt(7) != 0));
+            }
+        }
+        return mutations;
+    }
+
+    // Every deck, see Deck.key, with edits that have not been sent
+    public List<String> loadPendingWriteKeys() {
+        List<String> keys = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(true, TABLE_PENDING_WRITES, new String[]{"user_id"},
+                null, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+            }
+        }
+        return keys;
+    }
+
+    public void savePendingWrite(String userId, MutationQueue.Mutation mutation) {
+        ContentValues values = new ContentValues();
+        values.put("user_id", userId);
+        values.put("id", mutation.id);
+        values.put("is_delete", mutation.delete ? 1 : 0);
+        values.put("question", mutation.question);
+        values.put("answer", mutation.answer);
+        values.put("category", mutation.category);
+        values.put("tags", TagIndex.joinTags(mutation.tags));
+        values.put("updated_at", mutation.updatedAt);
+        values.put("created", mutation.created ? 1 : 0);
+        getWritableDatabase().insertWithOnConflict(TABLE_PENDING_WRITES, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public void deletePendingWrite(String userId, String id) {
+        getWritableDatabase().delete(TABLE_PENDING_WRITES, "user_id = ? AND id = ?", new String[]{userId, id});
+    }
+
+    public List<ReviewState> loadReviewStates(String userId) {
+        List<ReviewState> states = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_REVIEW_STATE,
+                new String[]{"id", "interval_days", "ease", "due", "lapses", "repetitions", "last_reviewed"},
+                "user_id = ?", new String[]{userId}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                states.add(new ReviewState(cursor.getString(0), cursor.getDouble(1), cursor.getDouble(2),
+                        cursor.getLong(3), cursor.getInt(4), cursor.getInt(5), cursor.getLong(6)));
+            }
+        }
+        return states;
+    }
+
+    // Cards due for review at now: those never reviewed and those whose due time has passed
+    public int countDue(String userId, long now) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_CARDS + " c"
+                        + " LEFT JOIN " + TABLE_REVIEW_STATE + " r ON r.user_id = c.user_id AND r.id = c.id"
+                        + " WHERE c.user_id = ? AND (r.due IS NULL OR r.due <= ?)",
+                new String[]{userId, Long.toString(now)})) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    public void saveReviewState(String userId, ReviewState state) {
+        ContentValues values = new ContentValues();
+        values.put("user_id", userId);
+        values.put("id", state.getCardId());
+        values.put("interval_days", state.getIntervalDays());
+        values.put("ease", state.getEase());
+        values.put("due", state.getDue());
+        values.put("lapses", state.getLapses());
+        values.put("repetitions", state.getRepetitions());
+        values.put("last_reviewed", state.getLastReviewed());
+        getWritableDatabase().insertWithOnConflict(TABLE_REVIEW_STATE, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.flashcards;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a card document straight into a {@link Flashcard}, field by field.
+ * {@code DocumentSnapshot.toObject} converts the whole document to a map and
+ * then matches it against the class's setters by reflection; this reads the
+ * five fields a card has and nothing else, and fills in the id as it goes.
+ *
+ * Lenient like the rest of the app's reads: a missing or mistyped field
+ * leaves the card's default instead of failing the whole snapshot.
+ */
+public final class FlashcardCodec {
+
+    // A document's fields by name, e.g. DocumentSnapshot::get
+    public interface Fields {
+        Object get(String field);
+    }
+
+    private FlashcardCodec() {}
+
+    public static Flashcard decode(DocumentSnapshot doc) {
+        return decode(doc.getId(), doc::get);
+    }
+
+    public static Flashcard decode(String id, Fields fields) {
+        Flashcard flashcard = new Flashcard(id, string(fields.get("question")), string(fields.get("answer")));
+        flashcard.setCategory(string(fields.get("category")));
+        flashcard.setTags(tags(fields.get("tags")));
+        flashcard.setUpdatedAt(number(fields.get("updatedAt")));
+        return flashcard;
+    }
+
+    // The document's updatedAt, read without decoding anything else
+    public static long updatedAt(DocumentSnapshot doc) {
+        return number(doc.get("updatedAt"));
+    }
+
+    // True when the card already held is the version the document has, going
+    // by updatedAt, which every write sets. Cards written without one always decode
+    public static boolean isUnchanged(Flashcard existing, long updatedAt) {
+        return existing != null && updatedAt != 0 && existing.getUpdatedAt() == updatedAt;
+    }
+
+    private static String string(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static List<String> tags(Object value) {
+        if (!(value instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<?> values = (List<?>) value;
+        List<String> tags = new ArrayList<>(values.size());
+        for (Object tag : values) {
+            if (tag instanceof String) {
+                tags.add((String) tag);
+            }
+        }
+        return tags;
+    }
+}
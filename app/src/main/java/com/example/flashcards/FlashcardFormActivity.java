@@ -11,17 +11,14 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 public class FlashcardFormActivity extends AppCompatActivity {
 
-    private TextInputEditText etQuestion, etAnswer;
+    private TextInputEditText etQuestion, etAnswer, etCategory, etTags;
     private TextInputLayout questionLayout, answerLayout;
     private MaterialButton btnSave;
-    private FirebaseFirestore db;
     private FirebaseAuth mAuth;
 
     private String flashcardId;  // null if creating new flashcard
@@ -36,9 +33,10 @@ public class FlashcardFormActivity extends AppCompatActivity {
         answerLayout = findViewById(R.id.answerLayout);
         etQuestion = findViewById(R.id.etQuestion);
         etAnswer = findViewById(R.id.etAnswer);
+        etCategory = findViewById(R.id.etCategory);
+        etTags = findViewById(R.id.etTags);
         btnSave = findViewById(R.id.btnSave);
 
-        db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         // Check if we are editing an existing flashcard
@@ -51,6 +49,8 @@ public class FlashcardFormActivity extends AppCompatActivity {
 
             etQuestion.setText(getIntent().getStringExtra("question"));
             etAnswer.setText(getIntent().getStringExtra("answer"));
+            etCategory.setText(getIntent().getStringExtra("category"));
+            etTags.setText(getIntent().getStringExtra("tags"));
             btnSave.setText("Update Flashcard");
         } else {
             if (getSupportActionBar() != null) {
@@ -64,6 +64,11 @@ public class FlashcardFormActivity extends AppCompatActivity {
     private void saveFlashcard() {
         String question = etQuestion.getText().toString().trim();
         String answer = etAnswer.getText().toString().trim();
+        String category = etCategory.getText().toString().trim();
+        List<String> tags = TagIndex.parseTags(etTags.getText().toString());
+        if (category.isEmpty()) {
+            category = null;
+        }
 
         // Reset errors
         questionLayout.setError(null);
@@ -80,58 +85,22 @@ public class FlashcardFormActivity extends AppCompatActivity {
             return;
         }
 
-        String userId = mAuth.getCurrentUser().getUid();
-        Map<String, Object> flashcard = new HashMap<>();
-        flashcard.put("question", question);
-        flashcard.put("answer", answer);
-        flashcard.put("userId", userId);
-
-        // Add a loading state to the button
-        btnSave.setEnabled(false);
-        btnSave.setText("Saving...");
-
+        // Saved locally and shown right away; FlashcardSync writes it to Firestore
+        String deckKey = Deck.openDeckKey(this, mAuth.getCurrentUser().getUid());
+        FlashcardRepository repository = FlashcardRepository.getInstance(this);
         if (flashcardId == null) {
-            // Create new flashcard
-            db.collection("users")
-                    .document(userId)
-                    .collection("flashcards")
-                    .add(flashcard)
-                    .addOnSuccessListener(documentReference -> {
-                        showSuccessToast("Flashcard created successfully");
-                        finish();
-                    })
-                    .addOnFailureListener(e -> {
-                        showErrorToast("Failed to create flashcard");
-                        resetButtonState();
-                    });
+            // Create new flashcard in the deck the list is showing
+            repository.save(deckKey, repository.newCardId(deckKey), question, answer, category, tags, true);
+            showSuccessToast("Flashcard created successfully");
         } else {
             // Update existing flashcard
-            db.collection("users")
-                    .document(userId)
-                    .collection("flashcards")
-                    .document(flashcardId)
-                    .set(flashcard)
-                    .addOnSuccessListener(aVoid -> {
-                        showSuccessToast("Flashcard updated successfully");
-                        finish();
-                    })
-                    .addOnFailureListener(e -> {
-                        showErrorToast("Failed to update flashcard");
-                        resetButtonState();
-                    });
+            repository.save(deckKey, flashcardId, question, answer, category, tags, false);
+            showSuccessToast("Flashcard updated successfully");
         }
+        finish();
     }
 
     private void showSuccessToast(String message) {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
-
-    private void showErrorToast(String message) {
-        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-    }
-
-    private void resetButtonState() {
-        btnSave.setEnabled(true);
-        btnSave.setText(flashcardId == null ? "Save Flashcard" : "Update Flashcard");
-    }
 }
\ No newline at end of file
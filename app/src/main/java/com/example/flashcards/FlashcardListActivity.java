@@ -1,5 +1,7 @@
 package com.example.flashcards;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
@@ -10,16 +12,25 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -27,19 +38,105 @@ import android.widget.Toast;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class FlashcardListActivity extends AppCompatActivity {
 
+    private static final String TAG = "FlashcardList";
+    // Searches are cancellable and off the main thread, so only a short pause is needed
+    private static final long SEARCH_DEBOUNCE_MS = 100;
+    // Start fetching the next page when this many rows are left below the screen
+    private static final int PREFETCH_DISTANCE = 10;
+    private static final int IMPORT_BATCHES_IN_FLIGHT = 4;
+    private static final String IMPORT_PREFS = "imports";
+    // Cards per export query; memory holds one page at a time
+    private static final int EXPORT_PAGE_SIZE = 500;
+    // Recycled rows kept around, about two screens of cards, so a fling seldom inflates
+    private static final int RECYCLED_ROWS = 20;
+
     private RecyclerView recyclerView;
     private FlashcardAdapter adapter;
-    private List<Flashcard> flashcardList;
-    private List<Flashcard> allFlashcards;
-    private FirebaseFirestore db;
+    private FlashcardRepository repository;
+    // The open deck's cards, shared with the other screens through the repository
+    private DeckFeed feed;
+    private final DeckFeed.Observer feedObserver = new DeckFeed.Observer() {
+        @Override
+        public void onCardsChanged(List<Flashcard> changed, List<String> removedIds) {
+            for (Flashcard flashcard : changed) {
+                searchRunner.add(flashcard);
+                tagIndex.update(flashcard);
+                adapter.invalidateText(flashcard.getId());
+            }
+            for (String id : removedIds) {
+                searchRunner.remove(id);
+                tagIndex.remove(id);
+                adapter.forgetCard(id);
+            }
+            if (feed.isLoaded()) {
+                // The first page is in; an empty deck counts as fully drawn too
+                reportFirstContentDrawn();
+            }
+            showFlashcards();
+        }
+
+        @Override
+        public void onSummaryChanged(Deck summary) {
+            openDeck = summary;
+            if (getSupportActionBar() != null && openDeck.getName() != null) {
+                getSupportActionBar().setTitle(openDeck.getName());
+            }
+            updateEmptyState();
+            refreshDueCount();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            Toast.makeText(FlashcardListActivity.this, "Error loading flashcards", Toast.LENGTH_SHORT).show();
+        }
+    };
+    private final TagIndex tagIndex = new TagIndex();
+    // Category or tag the list is narrowed to, null for every card
+    private CardFilter currentFilter;
+    private SearchRunner searchRunner;
+    private FlashcardCache cache;
+    private ExecutorService cacheExecutor;
+    private String userId;
+    // The open deck, see Deck.key; only its cards are loaded and listened to
+    private String deckKey;
+    private List<Deck> decks = new ArrayList<>();
+    // The open deck's summary, kept live so the header never needs the cards
+    private Deck openDeck;
+    // Cards due for review, counted in the local cache; -1 until known
+    private int dueCount = -1;
+    private ExecutorService importExecutor;
+    private BulkImporter importer;
+    private final ActivityResultLauncher<String[]> pickImportFile =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) startImport(uri);
+            });
+    private ExecutorService exportExecutor;
+    private CardExporter exporter;
+    private final ActivityResultLauncher<String> pickExportFile =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("application/gzip"), uri -> {
+                if (uri != null) startExport(uri);
+            });
+    private String currentQuery = "";
     private FirebaseAuth mAuth;
     private FloatingActionButton fabAdd;
     private TextInputEditText searchInput;
@@ -47,10 +144,12 @@ public class FlashcardListActivity extends AppCompatActivity {
     private TextView emptyStateView;
     private Handler searchHandler = new Handler();
     private Runnable searchRunnable;
+    private long lastKeystrokeNanos;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTracer.mark(StartupTracer.LIST_CREATED);
         setContentView(R.layout.activity_flashcard_list);
 
         // Setup Toolbar
@@ -68,15 +167,20 @@ public class FlashcardListActivity extends AppCompatActivity {
         emptyStateView = findViewById(R.id.emptyStateView);
 
         // Setup RecyclerView
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        // Binds the next row in the gaps between frames while scrolling
+        layoutManager.setItemPrefetchEnabled(true);
+        recyclerView.setLayoutManager(layoutManager);
+        // The list fills the screen whatever it holds, so row changes never relayout the screen
+        recyclerView.setHasFixedSize(true);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, RECYCLED_ROWS);
         recyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
 
-        flashcardList = new ArrayList<>();
-        allFlashcards = new ArrayList<>();
-        adapter = new FlashcardAdapter(this, flashcardList, new FlashcardAdapter.OnFlashcardClickListener() {
+        searchRunner = new SearchRunner(new Handler(Looper.getMainLooper())::post);
+        adapter = new FlashcardAdapter(this, new FlashcardAdapter.OnFlashcardClickListener() {
             @Override
             public void onFlashcardClick(int position) {
-                adapter.flipCard(position);
+                // The row flips itself
             }
 
             @Override
@@ -85,10 +189,25 @@ public class FlashcardListActivity extends AppCompatActivity {
             }
         });
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                onListScrolled();
+            }
+        });
 
-        // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        userId = mAuth.getCurrentUser().getUid();
+        deckKey = Deck.openDeckKey(this, userId);
+
+        // Shows the cards already in memory, or whatever was cached last
+        // session, while Firestore catches up
+        cache = FlashcardCache.getInstance(this);
+        cacheExecutor = Executors.newSingleThreadExecutor();
+        repository = FlashcardRepository.getInstance(this);
+        // Listens while the list is resumed and stops observing when it is destroyed
+        feed = repository.observe(this, deckKey, feedObserver);
+        loadDecks();
 
         // Set click listener for FAB with animation
         fabAdd.setOnClickListener(v -> {
@@ -121,12 +240,14 @@ public class FlashcardListActivity extends AppCompatActivity {
                 if (searchRunnable != null) {
                     searchHandler.removeCallbacks(searchRunnable);
                 }
+                searchRunner.cancel();
 
                 clearSearchButton.setVisibility(s.length() > 0 ? View.VISIBLE : View.GONE);
 
                 // Delay search to avoid excessive filtering while typing
+                lastKeystrokeNanos = System.nanoTime();
                 searchRunnable = () -> filterFlashcards(s.toString());
-                searchHandler.postDelayed(searchRunnable, 300); // 300ms delay
+                searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
             }
 
             @Override
@@ -151,32 +272,61 @@ public class FlashcardListActivity extends AppCompatActivity {
     }
 
     private void filterFlashcards(String query) {
-        List<Flashcard> filteredList = new ArrayList<>();
+        currentQuery = query.trim();
+        showFlashcards();
+    }
 
-        if (query.isEmpty()) {
-            filteredList.addAll(allFlashcards);
-        } else {
-            String lowercaseQuery = query.toLowerCase().trim();
-            for (Flashcard flashcard : allFlashcards) {
-                if (flashcard.getQuestion().toLowerCase().contains(lowercaseQuery) ||
-                        flashcard.getAnswer().toLowerCase().contains(lowercaseQuery)) {
-                    filteredList.add(flashcard);
-                }
-            }
+    // Submits an immutable copy of the visible cards; the adapter diffs it off the main thread
+    private void showFlashcards() {
+        if (currentQuery.isEmpty()) {
+            searchRunner.cancel();
+            submitFlashcards(applyFilter(feed.getAll()));
+            return;
         }
 
-        flashcardList.clear();
-        flashcardList.addAll(filteredList);
-        adapter.notifyDataSetChanged();
+        String query = currentQuery;
+        long keystrokeNanos = lastKeystrokeNanos;
+        searchRunner.search(query, (results, complete, latencyNanos) -> {
+            submitFlashcards(currentFilter == null ? results : applyFilter(results));
+            if (complete) {
+                Log.d(TAG, "Search \"" + query + "\" matched " + results.size() + " cards in "
+                        + latencyNanos / 1_000_000 + " ms ("
+                        + (System.nanoTime() - keystrokeNanos) / 1_000_000 + " ms since keystroke)");
+            }
+        });
+    }
 
-        updateEmptyState();
+    // The cards the current filter lets through, in the same order
+    private List<Flashcard> applyFilter(List<Flashcard> flashcards) {
+        if (currentFilter == null) {
+            return new ArrayList<>(flashcards);
+        }
+        Set<String> ids = tagIndex.cardIds(currentFilter);
+        List<Flashcard> filtered = new ArrayList<>(ids.size());
+        for (Flashcard flashcard : flashcards) {
+            if (ids.contains(flashcard.getId())) {
+                filtered.add(flashcard);
+            }
+        }
+        return filtered;
+    }
+
+    private void submitFlashcards(List<Flashcard> flashcards) {
+        adapter.submitList(Collections.unmodifiableList(flashcards), this::updateEmptyState);
     }
 
     private void updateEmptyState() {
-        if (allFlashcards.isEmpty()) {
+        if (adapter.getItemCount() > 0) {
+            reportFirstContentDrawn();
+        }
+        updateHeader();
+        if (feed.isEmpty() && openDeck != null && openDeck.getCardCount() > 0) {
+            // The deck has cards, they are just not loaded yet
+            emptyStateView.setVisibility(View.GONE);
+        } else if (feed.isEmpty()) {
             emptyStateView.setText("No flashcards found. Create one!");
             emptyStateView.setVisibility(View.VISIBLE);
-        } else if (flashcardList.isEmpty()) {
+        } else if (adapter.getItemCount() == 0) {
             emptyStateView.setText("No matching flashcards found");
             emptyStateView.setVisibility(View.VISIBLE);
         } else {
@@ -184,6 +334,15 @@ public class FlashcardListActivity extends AppCompatActivity {
         }
     }
 
+    private void reportFirstContentDrawn() {
+        if (StartupTracer.isMarked(StartupTracer.FIRST_CARD_DRAWN)) return;
+        // Posted so it runs after the frame that lays out the new rows
+        recyclerView.post(() -> {
+            StartupTracer.mark(StartupTracer.FIRST_CARD_DRAWN);
+            reportFullyDrawn();
+        });
+    }
+
     private void hideKeyboard() {
         InputMethodManager imm = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
         imm.hideSoftInputFromWindow(searchInput.getWindowToken(), 0);
@@ -192,39 +351,147 @@ public class FlashcardListActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        loadFlashcards();
+        // Coming back from a study session changes what is due
+        refreshDueCount();
     }
 
-    private void loadFlashcards() {
-        String userId = mAuth.getCurrentUser().getUid();
-        db.collection("users")
-                .document(userId)
-                .collection("flashcards")
-                .addSnapshotListener((value, error) -> {
-                    if (error != null) {
-                        Toast.makeText(this, "Error loading flashcards", Toast.LENGTH_SHORT).show();
-                        return;
+    // One read per deck summary. A default deck from before there were
+    // summaries is counted once, which also gives it its summary
+    private void loadDecks() {
+        repository.loadDecks(userId)
+                .addOnSuccessListener(loaded -> {
+                    boolean openDeckListed = false;
+                    for (Deck deck : loaded) {
+                        openDeckListed |= Deck.key(userId, deck.getId()).equals(deckKey);
                     }
+                    decks = loaded;
+                    if (!openDeckListed) {
+                        recountOpenDeck();
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Could not load decks", e));
+    }
 
-                    allFlashcards.clear();
-                    flashcardList.clear();
+    private void refreshDueCount() {
+        String key = deckKey;
+        cacheExecutor.execute(() -> {
+            int due = cache.countDue(key, System.currentTimeMillis());
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                dueCount = due;
+                updateHeader();
+            });
+        });
+    }
 
-                    for (DocumentSnapshot doc : value.getDocuments()) {
-                        Flashcard flashcard = doc.toObject(Flashcard.class);
-                        if (flashcard != null) {
-                            flashcard.setId(doc.getId());
-                            allFlashcards.add(flashcard);
-                            flashcardList.add(flashcard);
-                        }
+    // "120 cards, 14 due", or the filter and how many cards it matches
+    private void updateHeader() {
+        if (getSupportActionBar() == null) return;
+        if (openDeck == null && feed.isEmpty()) {
+            getSupportActionBar().setSubtitle(currentFilter == null ? null : currentFilter.label());
+            return;
+        }
+        long cards = headerCardCount();
+        StringBuilder header = new StringBuilder();
+        if (currentFilter != null) {
+            header.append(currentFilter.label()).append(", ");
+        }
+        header.append(cards).append(cards == 1 ? " card" : " cards");
+        if (currentFilter == null && dueCount >= 0) {
+            header.append(", ").append(dueCount).append(" due");
+        }
+        getSupportActionBar().setSubtitle(header);
+    }
+
+    // Counts come from the deck summary; tags are not aggregated, so a tag
+    // filter counts the loaded cards it matches
+    private long headerCardCount() {
+        if (currentFilter == null) {
+            return openDeck != null ? openDeck.getCardCount() : feed.size();
+        }
+        if (currentFilter.field == CardFilter.Field.CATEGORY && openDeck != null) {
+            Long count = openDeck.getCategoryCounts().get(currentFilter.value);
+            if (count != null) return count;
+        }
+        return tagIndex.cardIds(currentFilter).size();
+    }
+
+    private void recountOpenDeck() {
+        String key = deckKey;
+        repository.recount(key)
+                .addOnSuccessListener(count -> Log.d(TAG, "Deck " + key + " holds " + count + " cards"))
+                .addOnFailureListener(e -> Log.w(TAG, "Could not count deck " + key, e));
+    }
+
+    private void showDeckDialog() {
+        List<String> labels = new ArrayList<>();
+        int checked = -1;
+        for (Deck deck : decks) {
+            if (deck.getId().equals(Deck.deckIdOf(deckKey))) {
+                checked = labels.size();
+            }
+            labels.add(deck.getName() + " (" + deck.getCardCount() + ")");
+        }
+        labels.add("New deck...");
+
+        new AlertDialog.Builder(this)
+                .setTitle("Decks")
+                .setSingleChoiceItems(labels.toArray(new String[0]), checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    if (which == decks.size()) {
+                        showNewDeckDialog();
+                    } else {
+                        openDeck(decks.get(which).getId());
+                    }
+                })
+                .show();
+    }
+
+    private void showNewDeckDialog() {
+        EditText nameInput = new EditText(this);
+        nameInput.setHint("Deck name");
+        nameInput.setSingleLine(true);
+        new AlertDialog.Builder(this)
+                .setTitle("New deck")
+                .setView(nameInput)
+                .setPositiveButton("Create", (dialog, which) -> {
+                    String name = nameInput.getText().toString().trim();
+                    if (name.isEmpty()) {
+                        Toast.makeText(this, "A deck needs a name", Toast.LENGTH_SHORT).show();
+                        return;
                     }
+                    // Written in the background like card edits; the new deck opens at once
+                    openDeck(repository.createDeck(userId, name));
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
 
-                    adapter.notifyDataSetChanged();
-                    updateEmptyState();
-                });
+    // Everything on screen belongs to one deck, so switching rebuilds the activity
+    private void openDeck(String deckId) {
+        if (Deck.key(userId, deckId).equals(deckKey)) return;
+        Deck.setOpenDeckId(this, userId, deckId);
+        recreate();
+    }
+
+    private void onListScrolled() {
+        if (adapter.getItemCount() == 0) return;
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+
+        repository.setVisibleRange(deckKey, adapter.getFlashcard(first).getId(), adapter.getFlashcard(last).getId());
+        // A filtered list already has every matching card, see FlashcardRepository.loadFiltered
+        if (currentQuery.isEmpty() && currentFilter == null && last >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+            repository.loadNextPage(deckKey);
+        }
     }
 
     private void showFlashcardOptionsDialog(int position) {
-        Flashcard flashcard = flashcardList.get(position);
+        if (position == RecyclerView.NO_POSITION) return;
+        Flashcard flashcard = adapter.getFlashcard(position);
 
         String[] options = {"Edit", "Delete"};
         new AlertDialog.Builder(this)
@@ -236,6 +503,8 @@ public class FlashcardListActivity extends AppCompatActivity {
                         intent.putExtra("flashcardId", flashcard.getId());
                         intent.putExtra("question", flashcard.getQuestion());
                         intent.putExtra("answer", flashcard.getAnswer());
+                        intent.putExtra("category", flashcard.getCategory());
+                        intent.putExtra("tags", TagIndex.joinTags(flashcard.getTags()));
                         startActivity(intent);
                     } else {
                         // Delete option
@@ -255,25 +524,9 @@ public class FlashcardListActivity extends AppCompatActivity {
     }
 
     private void deleteFlashcard(Flashcard flashcard) {
-        String userId = mAuth.getCurrentUser().getUid();
-        db.collection("users")
-                .document(userId)
-                .collection("flashcards")
-                .document(flashcard.getId())
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    int position = flashcardList.indexOf(flashcard);
-                    if (position != -1) {
-                        flashcardList.remove(position);
-                        allFlashcards.remove(flashcard);
-                        adapter.notifyItemRemoved(position);
-                        updateEmptyState();
-                    }
-                    Toast.makeText(this, "Flashcard deleted", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to delete flashcard", Toast.LENGTH_SHORT).show();
-                });
+        // Removed from the list at once; FlashcardSync deletes it from Firestore
+        repository.delete(deckKey, flashcard.getId());
+        Toast.makeText(this, "Flashcard deleted", Toast.LENGTH_SHORT).show();
     }
 
     @Override
@@ -285,6 +538,26 @@ public class FlashcardListActivity extends AppCompatActivity {
 
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_study) {
+            startActivity(new Intent(this, StudySessionActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.action_decks) {
+            showDeckDialog();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_filter) {
+            showFilterDialog();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_import) {
+            pickImportFile.launch(new String[]{"text/*"});
+            return true;
+        }
+        if (item.getItemId() == R.id.action_export) {
+            pickExportFile.launch("flashcards.ndjson.gz");
+            return true;
+        }
         if (item.getItemId() == R.id.action_logout) {
             // Logout the user
             mAuth.signOut();
@@ -297,6 +570,223 @@ public class FlashcardListActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    // Lists every category in the deck, counted by its summary, and every tag
+    // on the loaded cards. Tags are not aggregated, so cards not loaded yet
+    // only show up under a tag once the list reaches them
+    private void showFilterDialog() {
+        List<CardFilter> filters = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        filters.add(null);
+        labels.add("All cards");
+        Map<String, ? extends Number> categoryCounts = openDeck != null
+                ? new TreeMap<>(openDeck.getCategoryCounts())
+                : tagIndex.categoryCounts();
+        for (Map.Entry<String, ? extends Number> entry : categoryCounts.entrySet()) {
+            if (entry.getValue().longValue() == 0) continue;
+            filters.add(CardFilter.category(entry.getKey()));
+            labels.add(entry.getKey() + " (" + entry.getValue() + ")");
+        }
+        for (Map.Entry<String, Integer> entry : tagIndex.tagCounts().entrySet()) {
+            filters.add(CardFilter.tag(entry.getKey()));
+            labels.add("#" + entry.getKey() + " (" + entry.getValue() + ")");
+        }
+        if (filters.size() == 1) {
+            Toast.makeText(this, "No cards have a category or tag yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Show cards in")
+                .setSingleChoiceItems(labels.toArray(new String[0]), filters.indexOf(currentFilter),
+                        (dialog, which) -> {
+                            dialog.dismiss();
+                            setFilter(filters.get(which));
+                        })
+                .show();
+    }
+
+    private void setFilter(CardFilter filter) {
+        if (Objects.equals(filter, currentFilter)) return;
+        currentFilter = filter;
+        updateHeader();
+        // Cards already loaded show at once, the query fills in the rest
+        showFlashcards();
+        if (filter != null) {
+            repository.loadFiltered(deckKey, filter);
+        }
+    }
+
+    // Imports a CSV/TSV/Anki text file in batches. Progress is saved per file, so
+    // picking the same file after a failure continues where it stopped
+    private void startImport(Uri uri) {
+        if (importer != null) {
+            Toast.makeText(this, "An import is already running", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        SharedPreferences prefs = getSharedPreferences(IMPORT_PREFS, MODE_PRIVATE);
+        String key = deckKey + "|" + uri;
+        String importId = prefs.getString(key + "|id", null);
+        long resumeFrom = prefs.getLong(key + "|committed", 0);
+        if (importId == null) {
+            importId = UUID.randomUUID().toString().substring(0, 8);
+            prefs.edit().putString(key + "|id", importId).apply();
+        } else if (resumeFrom > 0) {
+            Toast.makeText(this, "Resuming import after " + resumeFrom + " cards", Toast.LENGTH_SHORT).show();
+        }
+
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Importing flashcards")
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .setNegativeButton("Stop", (dialog, which) -> {
+                    if (importer != null) importer.cancel();
+                })
+                .show();
+
+        BulkImporter currentImporter = new BulkImporter(repository.importBatchWriter(deckKey, importId),
+                BulkImporter.MAX_BATCH_SIZE, IMPORT_BATCHES_IN_FLIGHT);
+        importer = currentImporter;
+        if (importExecutor == null) {
+            importExecutor = Executors.newSingleThreadExecutor();
+        }
+        importExecutor.execute(() -> {
+            try (InputStream input = getContentResolver().openInputStream(uri);
+                 CardImportParser parser = new CardImportParser(
+                         new InputStreamReader(Objects.requireNonNull(input), StandardCharsets.UTF_8),
+                         CardImportParser.Format.fromDocument(displayName(uri),
+                                 getContentResolver().getType(uri)))) {
+                currentImporter.run(parser, resumeFrom, new BulkImporter.Listener() {
+                    @Override
+                    public void onProgress(long committed, double cardsPerSecond) {
+                        prefs.edit().putLong(key + "|committed", committed).apply();
+                        runOnUiThread(() -> progressDialog.setMessage("Imported " + committed
+                                + " cards (" + Math.round(cardsPerSecond) + " cards/s)"));
+                    }
+
+                    @Override
+                    public void onFinished(long committed, int skippedRows) {
+                        prefs.edit().remove(key + "|id").remove(key + "|committed").apply();
+                        finishImport(progressDialog, "Imported " + committed + " cards"
+                                + (skippedRows > 0 ? ", skipped " + skippedRows + " incomplete rows" : ""));
+                    }
+
+                    @Override
+                    public void onFailed(long committed, Exception error) {
+                        Log.w(TAG, "Import stopped", error);
+                        finishImport(progressDialog, "Import stopped after " + committed
+                                + " cards. Pick the same file again to resume.");
+                    }
+                });
+            } catch (IOException | SecurityException | NullPointerException e) {
+                Log.w(TAG, "Could not read import file", e);
+                finishImport(progressDialog, "Could not read the file");
+            }
+        });
+    }
+
+    // The picked file's name; document URIs end in an opaque id such as "msf:1234"
+    private String displayName(Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri,
+                new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            return cursor != null && cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private void finishImport(AlertDialog progressDialog, String message) {
+        runOnUiThread(() -> {
+            importer = null;
+            // Imports do not count their cards as they go, see importBatchWriter
+            recountOpenDeck();
+            if (isDestroyed()) return;
+            progressDialog.dismiss();
+            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        });
+    }
+
+    // Streams the open deck's cards to a gzip'd NDJSON file, one query page at a time
+    private void startExport(Uri uri) {
+        if (exporter != null) {
+            Toast.makeText(this, "An export is already running", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Exporting flashcards")
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .setNegativeButton("Stop", (dialog, which) -> {
+                    if (exporter != null) exporter.cancel();
+                })
+                .show();
+
+        CardExporter currentExporter = new CardExporter(repository.exportPageSource(deckKey), EXPORT_PAGE_SIZE);
+        exporter = currentExporter;
+        if (exportExecutor == null) {
+            exportExecutor = Executors.newSingleThreadExecutor();
+        }
+        exportExecutor.execute(() -> {
+            // Set by the listener; anything short of a finished export is deleted below
+            String[] finishedMessage = {null};
+            String failureMessage;
+            // "wt" truncates when the user picks an existing file
+            try (ParcelFileDescriptor file = getContentResolver().openFileDescriptor(uri, "wt");
+                 FileOutputStream output = new FileOutputStream(Objects.requireNonNull(file).getFileDescriptor());
+                 CardExportWriter writer = new CardExportWriter(output.getChannel())) {
+                long[] stoppedAfter = {0};
+                currentExporter.run(writer, new CardExporter.Listener() {
+                    @Override
+                    public void onProgress(long exported, double cardsPerSecond) {
+                        runOnUiThread(() -> progressDialog.setMessage("Exported " + exported
+                                + " cards (" + Math.round(cardsPerSecond) + " cards/s)"));
+                    }
+
+                    @Override
+                    public void onFinished(long exported, long uncompressedBytes) {
+                        finishedMessage[0] = "Exported " + exported + " cards";
+                    }
+
+                    @Override
+                    public void onFailed(long exported, Exception error) {
+                        Log.w(TAG, "Export stopped", error);
+                        stoppedAfter[0] = exported;
+                    }
+                });
+                failureMessage = "Export stopped after " + stoppedAfter[0] + " cards, the file was deleted";
+            } catch (IOException | SecurityException | NullPointerException e) {
+                Log.w(TAG, "Could not write export file", e);
+                // Also when closing fails after the last page, the gzip trailer is then missing
+                finishedMessage[0] = null;
+                failureMessage = "Could not write the file";
+            }
+
+            if (finishedMessage[0] != null) {
+                finishExport(progressDialog, finishedMessage[0]);
+            } else {
+                deletePartialExport(uri);
+                finishExport(progressDialog, failureMessage);
+            }
+        });
+    }
+
+    // A cut off export would look like a complete backup of fewer cards
+    private void deletePartialExport(Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(getContentResolver(), uri);
+        } catch (FileNotFoundException | RuntimeException e) {
+            Log.w(TAG, "Could not delete partial export", e);
+        }
+    }
+
+    private void finishExport(AlertDialog progressDialog, String message) {
+        runOnUiThread(() -> {
+            exporter = null;
+            if (isDestroyed()) return;
+            progressDialog.dismiss();
+            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        });
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -304,5 +794,20 @@ public class FlashcardListActivity extends AppCompatActivity {
         if (searchRunnable != null) {
             searchHandler.removeCallbacks(searchRunnable);
         }
+        searchRunner.shutdown();
+        cacheExecutor.shutdown();
+        // The saved checkpoint lets the user resume a stopped import later
+        if (importer != null) {
+            importer.cancel();
+        }
+        if (importExecutor != null) {
+            importExecutor.shutdown();
+        }
+        if (exporter != null) {
+            exporter.cancel();
+        }
+        if (exportExecutor != null) {
+            exportExecutor.shutdown();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.example.flashcards;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads a flashcard collection one page at a time, ordered by document id,
+ * and keeps live listeners only on the pages the user can currently see.
+ *
+ * Each page is fetched once with {@code startAfter(cursor).limit(pageSize)}
+ * and from then on is identified by its id range (previous page's last id,
+ * its own last id], so a listener re-attached later covers exactly the same
+ * cards even if documents were added or deleted around it. The last page is
+ * left open-ended once the end of the collection is reached so new cards
+ * still show up.
+ *
+ * Page listeners are registered with {@link ListenerRegistry} under
+ * "cards" and the collection's path.
+ */
+public class FlashcardPager {
+
+    public interface Callback {
+        // Documents that were added or changed in a loaded page
+        void onCardsChanged(List<DocumentSnapshot> upserts, List<String> removedIds);
+        // Every card with an id in (afterId, lastId] is in ids; null bounds are open.
+        // Lets cards cached from an earlier session be dropped if they were deleted since
+        void onRangeLoaded(String afterId, String lastId, Set<String> ids);
+        void onError(Exception e);
+    }
+
+    private static class Page {
+        final DocumentSnapshot after;   // exclusive lower bound, null for the first page
+        DocumentSnapshot last;          // inclusive upper bound, null when open-ended
+        final Set<String> ids = new HashSet<>();
+        ListenerRegistration registration;
+        ListenerRegistry.Tracker tracker;
+
+        Page(DocumentSnapshot after) {
+            this.after = after;
+        }
+    }
+
+    private final Query baseQuery;
+    private final String listenerName;
+    private final int pageSize;
+    private final Callback callback;
+    private final List<Page> pages = new ArrayList<>();
+    private boolean loading;
+    private boolean reachedEnd;
+    private boolean paused;
+    private String firstVisibleId;
+    private String lastVisibleId;
+
+    public FlashcardPager(CollectionReference collection, int pageSize, Callback callback) {
+        this.baseQuery = collection.orderBy(FieldPath.documentId());
+        this.listenerName = "cards " + collection.getPath();
+        this.pageSize = pageSize;
+        this.callback = callback;
+    }
+
+    public boolean hasMore() {
+        return !reachedEnd;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public void loadNextPage() {
+        if (loading || reachedEnd) return;
+        loading = true;
+
+        Page previous = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        Page page = new Page(previous == null ? null : previous.last);
+        Query query = page.after == null ? baseQuery : baseQuery.startAfter(page.after);
+
+        query.limit(pageSize).get()
+                .addOnSuccessListener(snapshot -> {
+                    loading = false;
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    if (documents.size() < pageSize) {
+                        reachedEnd = true;
+                    } else {
+                        page.last = documents.get(documents.size() - 1);
+                    }
+                    if (documents.isEmpty() && previous != null) {
+                        // Nothing past the previous page; open it up to catch new cards
+                        reopenLastPage(previous);
+                        return;
+                    }
+
+                    for (DocumentSnapshot document : documents) {
+                        page.ids.add(document.getId());
+                    }
+                    pages.add(page);
+                    // An empty first page is still reported so the list can show its empty state
+                    if (!documents.isEmpty() || previous == null) {
+                        callback.onCardsChanged(documents, new ArrayList<>());
+                    }
+                    callback.onRangeLoaded(page.after == null ? null : page.after.getId(),
+                            page.last == null ? null : page.last.getId(), page.ids);
+                    updateListeners();
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    callback.onError(e);
+                });
+    }
+
+    // Ids of the first and last card on screen; only pages overlapping them stay live
+    public void setVisibleRange(String firstId, String lastId) {
+        firstVisibleId = firstId;
+        lastVisibleId = lastId;
+        updateListeners();
+    }
+
+    public void pause() {
+        paused = true;
+        for (Page page : pages) {
+            detach(page);
+        }
+    }
+
+    public void resume() {
+        paused = false;
+        if (pages.isEmpty()) {
+            loadNextPage();
+        } else {
+            updateListeners();
+        }
+    }
+
+    private void reopenLastPage(Page page) {
+        detach(page);
+        page.last = null;
+        updateListeners();
+    }
+
+    private void updateListeners() {
+        if (paused) return;
+        for (int i = 0; i < pages.size(); i++) {
+            Page page = pages.get(i);
+            if (isVisible(i)) {
+                attach(page);
+            } else {
+                detach(page);
+            }
+        }
+    }
+
+    private boolean isVisible(int index) {
+        if (firstVisibleId == null || lastVisibleId == null) {
+            // Nothing laid out yet, the first page is what will be drawn
+            return index == 0;
+        }
+        Page page = pages.get(index);
+        boolean startsBeforeEnd = page.after == null || page.after.getId().compareTo(lastVisibleId) < 0;
+        boolean endsAfterStart = page.last == null || page.last.getId().compareTo(firstVisibleId) >= 0;
+        return startsBeforeEnd && endsAfterStart;
+    }
+
+    private void attach(Page page) {
+        if (page.registration != null) return;
+
+        Query query = page.after == null ? baseQuery : baseQuery.startAfter(page.after);
+        if (page.last != null) {
+            query = query.endAt(page.last);
+        }
+        final boolean[] initial = {true};
+        ListenerRegistry.Tracker tracker = ListenerRegistry.getInstance().register(listenerName);
+        page.tracker = tracker;
+        page.registration = query.addSnapshotListener((value, error) -> tracker.dispatch(() -> {
+            if (error != null) {
+                callback.onError(error);
+                return;
+            }
+            List<DocumentSnapshot> upserts = new ArrayList<>();
+            List<String> removedIds = new ArrayList<>();
+            if (initial[0]) {
+                // Cards deleted while this page had no listener never produce a
+                // REMOVED change, so diff against the ids seen last time
+                reconcile(page, value, upserts, removedIds);
+            } else {
+                for (DocumentChange change : value.getDocumentChanges()) {
+                    QueryDocumentSnapshot doc = change.getDocument();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        page.ids.remove(doc.getId());
+                        removedIds.add(doc.getId());
+                    } else {
+                        page.ids.add(doc.getId());
+                        upserts.add(doc);
+                    }
+                }
+            }
+            if (!upserts.isEmpty() || !removedIds.isEmpty()) {
+                callback.onCardsChanged(upserts, removedIds);
+            }
+            if (initial[0]) {
+                initial[0] = false;
+                callback.onRangeLoaded(page.after == null ? null : page.after.getId(),
+                        page.last == null ? null : page.last.getId(), page.ids);
+            }
+        }));
+    }
+
+    private void reconcile(Page page, QuerySnapshot value, List<DocumentSnapshot> upserts,
+                           List<String> removedIds) {
+        Set<String> present = new HashSet<>();
+        for (QueryDocumentSnapshot doc : value) {
+            present.add(doc.getId());
+            upserts.add(doc);
+        }
+        for (String id : page.ids) {
+            if (!present.contains(id)) {
+                removedIds.add(id);
+            }
+        }
+        page.ids.clear();
+        page.ids.addAll(present);
+    }
+
+    private void detach(Page page) {
+        if (page.registration != null) {
+            page.registration.remove();
+            page.registration = null;
+            page.tracker.remove();
+            page.tracker = null;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.flashcards;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one place screens get cards and decks from. Owns a {@link DeckFeed}
+ * per open deck for the life of the process, filled from the on-device
+ * cache and then kept current by a single set of Firestore listeners per
+ * deck: a {@link FlashcardPager} for the cards and one on the deck's
+ * summary. Screens {@link #observe} a deck with their lifecycle: the feed's
+ * listeners are attached while any of them is resumed, once however many
+ * there are, and a destroyed screen stops observing without having to
+ * remember to. Every listener is counted in {@link ListenerRegistry}.
+ *
+ * Edits still go through {@link FlashcardSync}; the repository is its only
+ * listener and passes local writes on to the feed and the cache.
+ *
+ * Call everything on the main thread.
+ */
+public class FlashcardRepository {
+
+    private static final String TAG = "FlashcardRepository";
+    private static final int MIN_PAGE_SIZE = 20;
+
+    private static FlashcardRepository instance;
+
+    public static synchronized FlashcardRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new FlashcardRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context context;
+    private final FirebaseFirestore db;
+    private final FlashcardCache cache;
+    private final FlashcardSync sync;
+    private final FirestoreHelper helper;
+    // One thread keeps cache writes in the order the changes arrived
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, DeckConnection> decks = new HashMap<>();
+
+    private FlashcardRepository(Context context) {
+        this.context = context;
+        db = FirebaseFirestore.getInstance();
+        cache = FlashcardCache.getInstance(context);
+        sync = FlashcardSync.getInstance(context);
+        helper = new FirestoreHelper(db);
+        sync.addListener(this::applyLocalWrite);
+    }
+
+    // The deck's feed, see Deck.key. Created and filled from the cache the first
+    // time; decks no screen is using are dropped when another one is opened
+    public DeckFeed open(String deckKey) {
+        DeckConnection deck = decks.get(deckKey);
+        if (deck != null) {
+            return deck.feed;
+        }
+        dropIdleDecks();
+        deck = new DeckConnection(deckKey);
+        decks.put(deckKey, deck);
+        sync.open(deckKey);
+        loadCached(deck);
+        return deck.feed;
+    }
+
+    // Observes the deck until the owner is destroyed and keeps its listeners
+    // attached while the owner is resumed. Returns the deck's feed
+    public DeckFeed observe(LifecycleOwner owner, String deckKey, DeckFeed.Observer observer) {
+        DeckFeed feed = open(deckKey);
+        DeckFeed.Subscription subscription = feed.observe(observer);
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onResume(@NonNull LifecycleOwner owner) {
+                feed.start();
+            }
+
+            @Override
+            public void onPause(@NonNull LifecycleOwner owner) {
+                feed.stop();
+            }
+
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner owner) {
+                subscription.remove();
+                owner.getLifecycle().removeObserver(this);
+            }
+        });
+        return feed;
+    }
+
+    // A copy of the deck's cards if a screen has them in memory, otherwise null
+    public List<Flashcard> peekCards(String deckKey) {
+        DeckConnection deck = decks.get(deckKey);
+        return deck == null || deck.feed.isEmpty() ? null : new ArrayList<>(deck.feed.getAll());
+    }
+
+    // Ids of the first and last card on screen; only pages overlapping them stay live
+    public void setVisibleRange(String deckKey, String firstId, String lastId) {
+        DeckConnection deck = decks.get(deckKey);
+        if (deck != null && deck.pager != null) {
+            deck.pager.setVisibleRange(firstId, lastId);
+        }
+    }
+
+    public void loadNextPage(String deckKey) {
+        DeckConnection deck = decks.get(deckKey);
+        if (deck != null && deck.pager != null) {
+            deck.pager.loadNextPage();
+        }
+    }
+
+    // Downloads only the cards the filter matches rather than paging through the whole deck
+    public void loadFiltered(String deckKey, CardFilter filter) {
+        DeckConnection deck = decks.get(deckKey);
+        if (deck == null) return;
+        long start = System.nanoTime();
+        FirestoreHelper.filteredQuery(Deck.cards(db, deckKey), filter)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Log.d(TAG, "Filter " + filter.label() + " read " + snapshot.size() + " cards in "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    // Cached, but lastSynced stays put: cards outside the filter may
+                    // have changed since, and only the since-query can vouch for them
+                    if (!snapshot.isEmpty()) {
+                        applyRemote(deck, snapshot.getDocuments(), new ArrayList<>());
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Filtered load failed", e));
+    }
+
+    // The user's decks by name, one read per deck summary
+    public Task<List<Deck>> loadDecks(String userId) {
+        return Deck.decks(db, userId).orderBy("name").get().continueWith(task -> {
+            List<Deck> loaded = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                Deck deck = doc.toObject(Deck.class);
+                deck.setId(doc.getId());
+                loaded.add(deck);
+            }
+            return loaded;
+        });
+    }
+
+    // Creates an empty deck and returns its id. Written in the background like
+    // card edits, so the deck can be opened at once
+    public String createDeck(String userId, String name) {
+        DocumentReference deckRef = Deck.decks(db, userId).document();
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("name", name);
+        summary.put("cardCount", 0);
+        summary.put("updatedAt", System.currentTimeMillis());
+        deckRef.set(summary).addOnFailureListener(e -> Log.w(TAG, "Could not create deck", e));
+        return deckRef.getId();
+    }
+
+    public Task<Long> recount(String deckKey) {
+        return Deck.recount(db, deckKey);
+    }
+
+    public String newCardId(String deckKey) {
+        return sync.newCardId(deckKey);
+    }
+
+    public void save(String deckKey, String id, String question, String answer, String category,
+                     List<String> tags, boolean created) {
+        sync.save(deckKey, id, question, answer, category, tags, created);
+    }
+
+    public void delete(String deckKey, String id) {
+        sync.delete(deckKey, id);
+    }
+
+    public BulkImporter.BatchWriter importBatchWriter(String deckKey, String importId) {
+        return helper.importBatchWriter(deckKey, importId);
+    }
+
+    public CardExporter.PageSource exportPageSource(String deckKey) {
+        return helper.exportPageSource(deckKey);
+    }
+
+    // Firestore's listeners for one deck, attached while its feed is started
+    private class DeckConnection implements DeckFeed.Source {
+        final String deckKey;
+        final DeckFeed feed;
+        FlashcardPager pager;
+        long lastSynced;
+
+        DeckConnection(String deckKey) {
+            this.deckKey = deckKey;
+            this.feed = new DeckFeed(deckKey, this);
+        }
+
+        @Override
+        public DeckFeed.Subscription connect(DeckFeed feed) {
+            if (pager == null) {
+                pager = new FlashcardPager(Deck.cards(db, deckKey), pageSize(context), new FlashcardPager.Callback() {
+                    @Override
+                    public void onCardsChanged(List<DocumentSnapshot> upserts, List<String> removedIds) {
+                        applyRemote(DeckConnection.this, upserts, removedIds);
+                    }
+
+                    @Override
+                    public void onRangeLoaded(String afterId, String lastId, Set<String> ids) {
+                        // Drop cached cards that were deleted while the app was closed
+                        List<String> removedIds = new ArrayList<>();
+                        for (String id : feed.idsBetween(afterId, lastId)) {
+                            if (!ids.contains(id)) {
+                                removedIds.add(id);
+                            }
+                        }
+                        if (!removedIds.isEmpty()) {
+                            applyRemote(DeckConnection.this, new ArrayList<>(), removedIds);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        feed.reportError(e);
+                    }
+                });
+            }
+            pager.resume();
+
+            // A single document, so keeping the header current costs one read per change
+            DocumentReference summaryRef = Deck.summary(db, deckKey);
+            ListenerRegistry.Tracker tracker = ListenerRegistry.getInstance().register("summary " + summaryRef.getPath());
+            ListenerRegistration summaryListener = summaryRef.addSnapshotListener((doc, e) -> tracker.dispatch(() -> {
+                if (e != null) {
+                    Log.w(TAG, "Deck summary listener failed", e);
+                    return;
+                }
+                if (doc == null || !doc.exists()) return;
+                long start = System.nanoTime();
+                Deck summary = doc.toObject(Deck.class);
+                summary.setId(doc.getId());
+                ListenerRegistry.getInstance().recordDeserialize(1, System.nanoTime() - start);
+                feed.setSummary(summary);
+            }));
+
+            return () -> {
+                pager.pause();
+                summaryListener.remove();
+                tracker.remove();
+                if (ListenerRegistry.getInstance().isRecordingStacks()) {
+                    Log.d(TAG, ListenerRegistry.getInstance().summary());
+                }
+            };
+        }
+    }
+
+    private void dropIdleDecks() {
+        Iterator<DeckConnection> iterator = decks.values().iterator();
+        while (iterator.hasNext()) {
+            DeckFeed feed = iterator.next().feed;
+            if (!feed.hasObservers() && !feed.isConnected()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void loadCached(DeckConnection deck) {
+        // On a cold start the launcher has usually read the first page already,
+        // so the list can draw it before the rest of the cache is read
+        List<Flashcard> warmed = StartupWarmup.takeFlashcards(deck.deckKey);
+        if (warmed != null) {
+            deck.feed.applyCached(warmed);
+        }
+        cacheExecutor.execute(() -> {
+            List<Flashcard> cached = cache.load(deck.deckKey);
+            long cachedLastSynced = cache.getLastSynced(deck.deckKey);
+            handler.post(() -> {
+                deck.feed.applyCached(cached);
+                fetchChangedSinceLastSync(deck, cachedLastSynced);
+            });
+        });
+    }
+
+    // Cached cards outside the loaded pages are refreshed with one query for
+    // everything edited since the last sync instead of a full download. Only
+    // this query sees every edit after the watermark, so only it moves the
+    // watermark; pages and filters deliver arbitrary slices of the deck
+    private void fetchChangedSinceLastSync(DeckConnection deck, long since) {
+        if (since == 0) {
+            // Nothing cached yet. Cards cached from now on come from the server
+            // as they are, so the next sync only needs edits made after this point
+            setLastSynced(deck, System.currentTimeMillis());
+            return;
+        }
+        deck.lastSynced = since;
+        Deck.cards(db, deck.deckKey)
+                .whereGreaterThan("updatedAt", since)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    long newest = since;
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        newest = Math.max(newest, FlashcardCodec.updatedAt(doc));
+                    }
+                    if (!snapshot.isEmpty()) {
+                        applyRemote(deck, snapshot.getDocuments(), new ArrayList<>());
+                    }
+                    setLastSynced(deck, newest);
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Incremental sync failed", e));
+    }
+
+    // Queued behind the cache writes of the changes it covers
+    private void setLastSynced(DeckConnection deck, long lastSynced) {
+        if (lastSynced <= deck.lastSynced) return;
+        deck.lastSynced = lastSynced;
+        String deckKey = deck.deckKey;
+        cacheExecutor.execute(() -> cache.setLastSynced(deckKey, lastSynced));
+    }
+
+    private void applyRemote(DeckConnection deck, List<DocumentSnapshot> upserts, List<String> removedIds) {
+        // Only documents that changed are deserialized; untouched cards keep
+        // their existing objects. A page listener re-attaching, or the first
+        // page after a cold start, mostly delivers cards the feed already has
+        long start = System.nanoTime();
+        List<Flashcard> flashcards = new ArrayList<>(upserts.size());
+        for (DocumentSnapshot doc : upserts) {
+            // A local edit that is not written yet wins over the server copy
+            if (sync.getPending(deck.deckKey, doc.getId()) != null) continue;
+            long updatedAt = FlashcardCodec.updatedAt(doc);
+            if (FlashcardCodec.isUnchanged(deck.feed.get(doc.getId()), updatedAt)) continue;
+            flashcards.add(FlashcardCodec.decode(doc));
+        }
+        ListenerRegistry.getInstance().recordDeserialize(flashcards.size(), System.nanoTime() - start);
+        List<String> removed = new ArrayList<>(removedIds.size());
+        for (String id : removedIds) {
+            if (sync.getPending(deck.deckKey, id) == null) {
+                removed.add(id);
+            }
+        }
+        deck.feed.apply(flashcards, removed);
+
+        // Every decoded card carries a newer updatedAt than the cache holds, even
+        // when its content is unchanged and the feed kept the old instance
+        String deckKey = deck.deckKey;
+        cacheExecutor.execute(() -> cache.write(deckKey, flashcards, removed));
+    }
+
+    // Shows an edit from FlashcardSync before Firestore has it. The sync
+    // watermark is left alone, it only tracks what the server has confirmed.
+    // The cache is written even for a deck that is not open, so the edit is
+    // there when the deck is next loaded from it
+    private void applyLocalWrite(String deckKey, MutationQueue.Mutation mutation) {
+        List<Flashcard> flashcards = new ArrayList<>(1);
+        List<String> removedIds = new ArrayList<>(1);
+        if (mutation.delete) {
+            removedIds.add(mutation.id);
+        } else {
+            flashcards.add(mutation.toFlashcard());
+        }
+        cacheExecutor.execute(() -> cache.write(deckKey, flashcards, removedIds));
+        DeckConnection deck = decks.get(deckKey);
+        if (deck != null) {
+            deck.feed.applyLocal(flashcards, removedIds);
+        }
+    }
+
+    // Enough rows for two screens, so the first page fills the list and leaves room to scroll
+    static int pageSize(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int screenHeightDp = (int) (metrics.heightPixels / metrics.density);
+        return Math.max(MIN_PAGE_SIZE, screenHeightDp / 80 * 2);
+    }
+}
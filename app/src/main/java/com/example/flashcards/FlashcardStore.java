@@ -0,0 +1,134 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Id-keyed, ordered collection of flashcards that is updated one document
+ * change at a time instead of being rebuilt from every snapshot.
+ *
+ * Cards are kept sorted (by document id unless another comparator is given,
+ * which matches Firestore's default query order), so a position is found with
+ * a binary search.
+ */
+public class FlashcardStore {
+
+    // Firestore orders un-ordered queries by document id
+    public static final Comparator<Flashcard> BY_ID = (a, b) -> a.getId().compareTo(b.getId());
+
+    private final List<Flashcard> cards = new ArrayList<>();
+    private final Map<String, Flashcard> cardsById = new HashMap<>();
+    private final Comparator<Flashcard> order;
+
+    public FlashcardStore() {
+        this(BY_ID);
+    }
+
+    // The comparator must be total (break ties on id) so binary search finds the exact card
+    public FlashcardStore(Comparator<Flashcard> order) {
+        this.order = order;
+    }
+
+    // Insert a new card or replace an existing one with the same id.
+    // Returns false when the content is unchanged and the existing instance was
+    // kept; that instance still takes the newer updatedAt, so the next delivery
+    // of the same document is recognised as unchanged without decoding it.
+    public boolean upsert(Flashcard flashcard) {
+        Flashcard existing = cardsById.get(flashcard.getId());
+        if (existing == null) {
+            int position = insertionPoint(flashcard);
+            cards.add(position, flashcard);
+            cardsById.put(flashcard.getId(), flashcard);
+            return true;
+        }
+
+        if (existing.hasSameContent(flashcard)) {
+            existing.setUpdatedAt(Math.max(existing.getUpdatedAt(), flashcard.getUpdatedAt()));
+            return false;
+        }
+
+        int fromPosition = positionOf(existing);
+        cardsById.put(flashcard.getId(), flashcard);
+        if (order.compare(existing, flashcard) == 0) {
+            // Sort key unchanged, replace in place
+            cards.set(fromPosition, flashcard);
+            return true;
+        }
+
+        cards.remove(fromPosition);
+        int toPosition = insertionPoint(flashcard);
+        cards.add(toPosition, flashcard);
+        return true;
+    }
+
+    public boolean remove(String id) {
+        Flashcard existing = cardsById.remove(id);
+        if (existing == null) {
+            return false;
+        }
+        int position = positionOf(existing);
+        cards.remove(position);
+        return true;
+    }
+
+    public void clear() {
+        cards.clear();
+        cardsById.clear();
+    }
+
+    public Flashcard get(int position) {
+        return cards.get(position);
+    }
+
+    public Flashcard get(String id) {
+        return cardsById.get(id);
+    }
+
+    public int indexOf(String id) {
+        Flashcard existing = cardsById.get(id);
+        return existing == null ? -1 : positionOf(existing);
+    }
+
+    public int size() {
+        return cards.size();
+    }
+
+    public boolean isEmpty() {
+        return cards.isEmpty();
+    }
+
+    // Ids in (afterId, lastId] for a store ordered BY_ID; a null bound is open
+    public List<String> idsBetween(String afterId, String lastId) {
+        int from = afterId == null ? 0 : upperBound(afterId);
+        int to = lastId == null ? cards.size() : upperBound(lastId);
+        List<String> ids = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            ids.add(cards.get(i).getId());
+        }
+        return ids;
+    }
+
+    // Read-only live view in display order
+    public List<Flashcard> getAll() {
+        return Collections.unmodifiableList(cards);
+    }
+
+    private int positionOf(Flashcard flashcard) {
+        return Collections.binarySearch(cards, flashcard, order);
+    }
+
+    // First position whose id sorts after the given id
+    private int upperBound(String id) {
+        int index = Collections.binarySearch(cards, new Flashcard(id, null, null), order);
+        return index < 0 ? -(index + 1) : index + 1;
+    }
+
+    private int insertionPoint(Flashcard flashcard) {
+        int index = Collections.binarySearch(cards, flashcard, order);
+        return index < 0 ? -(index + 1) : index;
+    }
+}
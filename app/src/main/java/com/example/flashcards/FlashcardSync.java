@@ -0,0 +1,279 @@
+package com.example.flashcards;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Accepts card edits and deletes immediately and writes them to Firestore
+ * later, in batches. Edits are kept in a {@link MutationQueue} per deck,
+ * saved to {@link FlashcardCache} so they survive the process, and flushed
+ * shortly after the last edit whenever the device has a network. Screens
+ * listen for local writes to show them straight away.
+ *
+ * Call everything on the main thread.
+ */
+public class FlashcardSync {
+
+    public interface Listener {
+        void onLocalWrite(String deckKey, MutationQueue.Mutation mutation);
+    }
+
+    // Lets a burst of edits coalesce before anything is written
+    private static final long FLUSH_DELAY_MS = 2000;
+    private static final long RETRY_DELAY_MS = 30_000;
+    // The writer reads every card in a batch one at a time before writing,
+    // so batches are kept well below Firestore's 500 write limit
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static FlashcardSync instance;
+
+    public static synchronized FlashcardSync getInstance(Context context) {
+        if (instance == null) {
+            instance = new FlashcardSync(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final FlashcardCache cache;
+    private final FirebaseFirestore db;
+    // One thread keeps the saved rows in the same order as the edits
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, MutationQueue> queues = new HashMap<>();
+    private final Map<String, Runnable> scheduledFlushes = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private boolean online;
+
+    private FlashcardSync(Context context) {
+        cache = FlashcardCache.getInstance(context);
+        db = FirebaseFirestore.getInstance();
+
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                handler.post(() -> {
+                    online = true;
+                    for (String deckKey : queues.keySet()) {
+                        scheduleFlush(deckKey, 0);
+                    }
+                });
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                handler.post(() -> online = false);
+            }
+        });
+
+        // Edits left in any of the signed-in user's decks by an earlier run are
+        // sent now, not only once their deck is opened again
+        diskExecutor.execute(() -> {
+            List<String> deckKeys = cache.loadPendingWriteKeys();
+            handler.post(() -> {
+                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+                if (user == null) return;
+                for (String deckKey : deckKeys) {
+                    if (Deck.userIdOf(deckKey).equals(user.getUid())) {
+                        open(deckKey);
+                    }
+                }
+            });
+        });
+    }
+
+    // Loads the deck's edits left over from an earlier run and starts writing them.
+    // Decks are named by Deck.key
+    public void open(String deckKey) {
+        queue(deckKey);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Firestore generates document ids locally, so a new card has its final id before it is written
+    public String newCardId(String deckKey) {
+        return flashcards(deckKey).document().getId();
+    }
+
+    // created is true for a card that has never been saved before
+    public void save(String deckKey, String id, String question, String answer, String category,
+                     List<String> tags, boolean created) {
+        enqueue(deckKey, MutationQueue.Mutation.set(id, question, answer, category, tags,
+                System.currentTimeMillis(), created));
+    }
+
+    public void delete(String deckKey, String id) {
+        enqueue(deckKey, MutationQueue.Mutation.delete(id));
+    }
+
+    // Local state of a card whose edit has not been acknowledged, or null
+    public MutationQueue.Mutation getPending(String deckKey, String id) {
+        return queue(deckKey).getPending(id);
+    }
+
+    public List<MutationQueue.Mutation> getAllPending(String deckKey) {
+        return queue(deckKey).getAllPending();
+    }
+
+    // Writes a batch of mutations in one transaction and reports on the main thread.
+    // The transaction reads each card first, so the deck's card and category
+    // counts move by exactly what the server saw change, even when another
+    // device edits the same cards; Firestore reruns it if one of them changes
+    // before the commit. That costs one read per card written
+    static MutationQueue.Writer batchWriter(CollectionReference flashcards, DocumentReference deck, String userId) {
+        return (batch, done) -> flashcards.getFirestore().runTransaction(transaction -> {
+            // Every read has to come before the first write
+            List<DocumentSnapshot> before = new ArrayList<>(batch.size());
+            for (MutationQueue.Mutation mutation : batch) {
+                before.add(transaction.get(flashcards.document(mutation.id)));
+            }
+
+            DeckCountDelta delta = new DeckCountDelta();
+            long updatedAt = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                MutationQueue.Mutation mutation = batch.get(i);
+                DocumentSnapshot old = before.get(i);
+                delta.add(old.exists(), old.getString("category"), !mutation.delete, mutation.category);
+                if (mutation.delete) {
+                    transaction.delete(flashcards.document(mutation.id));
+                } else {
+                    updatedAt = Math.max(updatedAt, mutation.updatedAt);
+                    Map<String, Object> flashcard = new HashMap<>();
+                    flashcard.put("question", mutation.question);
+                    flashcard.put("answer", mutation.answer);
+                    flashcard.put("category", mutation.category);
+                    flashcard.put("tags", mutation.tags);
+                    flashcard.put("userId", userId);
+                    flashcard.put("updatedAt", mutation.updatedAt); // Lets the local cache sync incrementally
+                    if (!old.exists()) {
+                        // Every card records when it was created, as imported cards do
+                        flashcard.put("createdAt", mutation.updatedAt);
+                    }
+                    // Merged, so fields the app does not edit, such as createdAt, survive
+                    transaction.set(flashcards.document(mutation.id), flashcard, SetOptions.merge());
+                }
+            }
+
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("cardCount", FieldValue.increment(delta.getCards()));
+            Map<String, Long> categoryDeltas = delta.getCategories();
+            if (!categoryDeltas.isEmpty()) {
+                // A merged map only touches the categories listed
+                Map<String, Object> categoryCounts = new HashMap<>();
+                for (Map.Entry<String, Long> entry : categoryDeltas.entrySet()) {
+                    categoryCounts.put(entry.getKey(), FieldValue.increment(entry.getValue()));
+                }
+                summary.put("categoryCounts", categoryCounts);
+            }
+            if (updatedAt > 0) {
+                summary.put("updatedAt", updatedAt);
+            }
+            transaction.set(deck, summary, SetOptions.merge());
+            return null;
+        }).addOnCompleteListener(task -> done.onComplete(task.getException()));
+    }
+
+    private void enqueue(String deckKey, MutationQueue.Mutation mutation) {
+        queue(deckKey).enqueue(mutation);
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onLocalWrite(deckKey, mutation);
+        }
+        scheduleFlush(deckKey, FLUSH_DELAY_MS);
+    }
+
+    private MutationQueue queue(String deckKey) {
+        MutationQueue queue = queues.get(deckKey);
+        if (queue != null) {
+            return queue;
+        }
+
+        MutationQueue created = new MutationQueue(new MutationQueue.Persistence() {
+            @Override
+            public void save(MutationQueue.Mutation mutation) {
+                diskExecutor.execute(() -> cache.savePendingWrite(deckKey, mutation));
+            }
+
+            @Override
+            public void delete(String id) {
+                diskExecutor.execute(() -> cache.deletePendingWrite(deckKey, id));
+            }
+        });
+        queues.put(deckKey, created);
+
+        // Edits left over from an earlier run
+        diskExecutor.execute(() -> {
+            List<MutationQueue.Mutation> saved = cache.loadPendingWrites(deckKey);
+            if (saved.isEmpty()) return;
+            handler.post(() -> {
+                created.restore(saved);
+                for (MutationQueue.Mutation mutation : created.getAllPending()) {
+                    for (Listener listener : new ArrayList<>(listeners)) {
+                        listener.onLocalWrite(deckKey, mutation);
+                    }
+                }
+                scheduleFlush(deckKey, 0);
+            });
+        });
+        return created;
+    }
+
+    private void scheduleFlush(String deckKey, long delayMs) {
+        Runnable previous = scheduledFlushes.remove(deckKey);
+        if (previous != null) {
+            handler.removeCallbacks(previous);
+        }
+        Runnable flush = () -> {
+            scheduledFlushes.remove(deckKey);
+            flush(deckKey);
+        };
+        scheduledFlushes.put(deckKey, flush);
+        handler.postDelayed(flush, delayMs);
+    }
+
+    private void flush(String deckKey) {
+        if (!online) return; // The network callback flushes once we are back online
+
+        MutationQueue queue = queue(deckKey);
+        MutationQueue.Writer writer = batchWriter(flashcards(deckKey), Deck.summary(db, deckKey),
+                Deck.userIdOf(deckKey));
+        queue.flush((batch, done) -> writer.write(batch, error -> {
+            done.onComplete(error);
+            if (error != null) {
+                scheduleFlush(deckKey, RETRY_DELAY_MS);
+            } else if (queue.pendingCount() > 0) {
+                scheduleFlush(deckKey, 0);
+            }
+        }), MAX_BATCH_SIZE);
+    }
+
+    private CollectionReference flashcards(String deckKey) {
+        return Deck.cards(db, deckKey);
+    }
+}
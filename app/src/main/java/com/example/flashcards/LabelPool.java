@@ -0,0 +1,58 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical copies of categories and tag lists. Every decoded card brings
+ * its own strings, while a deck uses a handful of distinct labels, so
+ * interning them keeps one copy per label instead of one per card.
+ *
+ * Tag lists come back unmodifiable, since they are shared between cards.
+ * The pool stops taking new entries once it is full, so a deck of unique
+ * labels costs no more than it did before.
+ */
+final class LabelPool {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final Map<String, String> strings = new HashMap<>();
+    private static final Map<List<String>, List<String>> lists = new HashMap<>();
+
+    private LabelPool() {
+    }
+
+    static synchronized String intern(String label) {
+        if (label == null) {
+            return null;
+        }
+        String pooled = strings.get(label);
+        if (pooled == null && strings.size() < MAX_ENTRIES) {
+            strings.put(label, label);
+            pooled = label;
+        }
+        return pooled == null ? label : pooled;
+    }
+
+    static synchronized List<String> intern(List<String> tags) {
+        if (tags.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> pooled = lists.get(tags);
+        if (pooled != null) {
+            return pooled;
+        }
+        List<String> copy = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            copy.add(intern(tag));
+        }
+        pooled = Collections.unmodifiableList(copy);
+        if (lists.size() < MAX_ENTRIES) {
+            lists.put(pooled, pooled);
+        }
+        return pooled;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps count of the app's Firestore snapshot listeners: how many are
+ * attached, how often each one fires and how long its snapshots take to
+ * deserialize. Every {@code addSnapshotListener} registers a {@link Tracker}
+ * here and removes it with the listener, so a listener that outlives its
+ * screen shows up in {@link #leaks()} together with where it was added.
+ *
+ * Capturing that stack costs an allocation and a stack walk per listener, so
+ * the app's registry only does it in debug builds, which is also where its
+ * summary is logged.
+ *
+ * Listeners are grouped by name, which includes the path they listen to.
+ * Safe to read from any thread; trackers fire on the thread their listener
+ * runs on.
+ */
+public final class ListenerRegistry {
+
+    public final class Tracker {
+        final String name;
+        // Where the listener was added, reported if it leaks; null unless stacks are recorded
+        final Throwable registeredAt;
+        private boolean removed;
+
+        Tracker(String name) {
+            this.name = name;
+            this.registeredAt = recordStacks ? new Throwable("Listener " + name + " registered here") : null;
+        }
+
+        // Runs a snapshot's handler; deserializing inside it is counted for this listener
+        public void dispatch(Runnable handler) {
+            synchronized (ListenerRegistry.this) {
+                stats(name).fires++;
+            }
+            Tracker outer = current.get();
+            current.set(this);
+            try {
+                handler.run();
+            } finally {
+                current.set(outer);
+            }
+        }
+
+        public void remove() {
+            synchronized (ListenerRegistry.this) {
+                if (removed) return;
+                removed = true;
+                active.remove(this);
+                stats(name).active--;
+            }
+        }
+    }
+
+    public static final class Stats {
+        public final String name;
+        int active;
+        int registered;
+        long fires;
+        long deserializeNanos;
+        long documents;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        Stats(Stats other) {
+            this(other.name);
+            active = other.active;
+            registered = other.registered;
+            fires = other.fires;
+            deserializeNanos = other.deserializeNanos;
+            documents = other.documents;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getRegistered() {
+            return registered;
+        }
+
+        public long getFires() {
+            return fires;
+        }
+
+        public long getDeserializeNanos() {
+            return deserializeNanos;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+    }
+
+    private static final ListenerRegistry instance = new ListenerRegistry(BuildConfig.DEBUG);
+
+    public static ListenerRegistry getInstance() {
+        return instance;
+    }
+
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final Set<Tracker> active = new LinkedHashSet<>();
+    private final ThreadLocal<Tracker> current = new ThreadLocal<>();
+    private final boolean recordStacks;
+
+    ListenerRegistry(boolean recordStacks) {
+        this.recordStacks = recordStacks;
+    }
+
+    // True when trackers remember where they were registered and the summary is worth logging
+    public boolean isRecordingStacks() {
+        return recordStacks;
+    }
+
+    public synchronized Tracker register(String name) {
+        Tracker tracker = new Tracker(name);
+        active.add(tracker);
+        Stats stats = stats(name);
+        stats.active++;
+        stats.registered++;
+        return tracker;
+    }
+
+    // Time spent turning documents into cards, added to the listener whose
+    // handler is running on this thread. Ignored outside a handler, e.g. for a one-off get()
+    public void recordDeserialize(int documents, long nanos) {
+        Tracker tracker = current.get();
+        if (tracker == null) return;
+        synchronized (this) {
+            Stats stats = stats(tracker.name);
+            stats.documents += documents;
+            stats.deserializeNanos += nanos;
+        }
+    }
+
+    public synchronized int activeCount() {
+        return active.size();
+    }
+
+    // Attached listeners whose name starts with the prefix, e.g. one deck's path
+    public synchronized int activeCount(String namePrefix) {
+        int count = 0;
+        for (Tracker tracker : active) {
+            if (tracker.name.startsWith(namePrefix)) count++;
+        }
+        return count;
+    }
+
+    // A copy of every listener's counters, in the order they were first registered
+    public synchronized List<Stats> getStats() {
+        List<Stats> copy = new ArrayList<>(stats.size());
+        for (Stats value : stats.values()) {
+            copy.add(new Stats(value));
+        }
+        return copy;
+    }
+
+    // Listeners still attached whose name starts with the prefix, with the stack
+    // that added them, or none when stacks are not recorded. Empty once every
+    // screen using them has gone
+    public synchronized List<Throwable> leaks(String namePrefix) {
+        List<Throwable> leaks = new ArrayList<>();
+        for (Tracker tracker : active) {
+            if (!tracker.name.startsWith(namePrefix)) continue;
+            if (tracker.registeredAt != null) {
+                leaks.add(tracker.registeredAt);
+            } else {
+                Throwable leak = new Throwable("Listener " + tracker.name + " registered, stack not recorded");
+                leak.setStackTrace(new StackTraceElement[0]);
+                leaks.add(leak);
+            }
+        }
+        return leaks;
+    }
+
+    public List<Throwable> leaks() {
+        return leaks("");
+    }
+
+    // One line per listener name, for logcat
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(active.size()).append(" listeners attached");
+        for (Stats value : stats.values()) {
+            summary.append(String.format(Locale.ROOT, "%n  %s: %d attached, %d registered, %d fires, %d docs in %.1f ms",
+                    value.name, value.active, value.registered, value.fires, value.documents,
+                    value.deserializeNanos / 1e6));
+        }
+        return summary.toString();
+    }
+
+    private Stats stats(String name) {
+        Stats value = stats.get(name);
+        if (value == null) {
+            value = new Stats(name);
+            stats.put(name, value);
+        }
+        return value;
+    }
+}
@@ -11,13 +11,18 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTracer.mark(StartupTracer.LAUNCHER_CREATED);
         auth = FirebaseAuth.getInstance();
+        StartupTracer.mark(StartupTracer.AUTH_READY);
 
         if (auth.getCurrentUser() != null) {
+            // Reads the first cards while the list is being created
+            StartupWarmup.start(this, auth.getCurrentUser().getUid());
             startActivity(new Intent(this, FlashcardListActivity.class));
         } else {
             startActivity(new Intent(this, LoginActivity.class));
         }
+        StartupTracer.mark(StartupTracer.ROUTED);
         finish();
     }
 }
@@ -0,0 +1,238 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local card edits waiting to be written to Firestore, at most one per card.
+ *
+ * Every write is a whole-document set or a delete, so only the latest state
+ * of a card matters: repeated edits collapse into one set, and a delete of a
+ * card that never reached the server cancels its create. Batches handed to
+ * the writer are tracked as in flight; edits made meanwhile queue up behind
+ * them and a failed batch is merged back underneath those newer edits.
+ *
+ * Not thread safe; the app drives it from the main thread.
+ */
+public class MutationQueue {
+
+    public static class Mutation {
+        public final String id;
+        public final boolean delete;
+        public final String question;
+        public final String answer;
+        public final String category;
+        public final List<String> tags;
+        public final long updatedAt;
+        // True while the card exists only locally, so a delete can simply drop it
+        public final boolean created;
+
+        public Mutation(String id, boolean delete, String question, String answer, String category,
+                        List<String> tags, long updatedAt, boolean created) {
+            this.id = id;
+            this.delete = delete;
+            this.question = question;
+            this.answer = answer;
+            this.category = category;
+            this.tags = tags == null ? Collections.emptyList() : tags;
+            this.updatedAt = updatedAt;
+            this.created = created;
+        }
+
+        public static Mutation set(String id, String question, String answer, long updatedAt, boolean created) {
+            return set(id, question, answer, null, null, updatedAt, created);
+        }
+
+        public static Mutation set(String id, String question, String answer, String category, List<String> tags,
+                                   long updatedAt, boolean created) {
+            return new Mutation(id, false, question, answer, category, tags, updatedAt, created);
+        }
+
+        public static Mutation delete(String id) {
+            return new Mutation(id, true, null, null, null, null, 0, false);
+        }
+
+        public Flashcard toFlashcard() {
+            Flashcard flashcard = new Flashcard(id, question, answer);
+            flashcard.setCategory(category);
+            flashcard.setTags(tags);
+            flashcard.setUpdatedAt(updatedAt);
+            return flashcard;
+        }
+    }
+
+    // Keeps the queue across process death, one row per card id
+    public interface Persistence {
+        void save(Mutation mutation);
+        void delete(String id);
+    }
+
+    public interface Writer {
+        // Must call done exactly once, on the thread that drives the queue
+        void write(List<Mutation> batch, Completion done);
+    }
+
+    public interface Completion {
+        // error is null once the whole batch is written
+        void onComplete(Exception error);
+    }
+
+    private static final Persistence NO_PERSISTENCE = new Persistence() {
+        @Override
+        public void save(Mutation mutation) {
+        }
+
+        @Override
+        public void delete(String id) {
+        }
+    };
+
+    // Insertion order, so older edits are flushed first
+    private final LinkedHashMap<String, Mutation> pending = new LinkedHashMap<>();
+    private final Map<String, Mutation> inFlight = new HashMap<>();
+    private final Persistence persistence;
+    private int enqueuedCount;
+
+    public MutationQueue() {
+        this(NO_PERSISTENCE);
+    }
+
+    public MutationQueue(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    // Queues an edit, merging it with any edit still waiting for the same card
+    public void enqueue(Mutation mutation) {
+        enqueuedCount++;
+        if (inFlight.containsKey(mutation.id) && mutation.created) {
+            throw new IllegalArgumentException("Card " + mutation.id + " is already being written");
+        }
+        Mutation merged = merge(pending.remove(mutation.id), mutation);
+        if (merged == null) {
+            persistence.delete(mutation.id);
+        } else {
+            pending.put(mutation.id, merged);
+            persistence.save(merged);
+        }
+    }
+
+    // Adds edits read back from persistence; edits already queued are newer and win
+    public void restore(Collection<Mutation> saved) {
+        LinkedHashMap<String, Mutation> newer = new LinkedHashMap<>(pending);
+        pending.clear();
+        for (Mutation mutation : saved) {
+            pending.put(mutation.id, mutation);
+        }
+        for (Mutation mutation : newer.values()) {
+            Mutation merged = merge(pending.remove(mutation.id), mutation);
+            if (merged == null) {
+                persistence.delete(mutation.id);
+            } else {
+                pending.put(mutation.id, merged);
+                if (merged != mutation) {
+                    persistence.save(merged);
+                }
+            }
+        }
+    }
+
+    // Hands the oldest pending edits to the writer. Returns false if a batch is
+    // still in flight or there is nothing to write.
+    public boolean flush(Writer writer, int maxBatchSize) {
+        if (!inFlight.isEmpty() || pending.isEmpty()) {
+            return false;
+        }
+
+        List<Mutation> batch = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+        Iterator<Mutation> iterator = pending.values().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatchSize) {
+            Mutation mutation = iterator.next();
+            iterator.remove();
+            inFlight.put(mutation.id, mutation);
+            batch.add(mutation);
+        }
+        writer.write(batch, error -> onBatchComplete(batch, error));
+        return true;
+    }
+
+    // The state the UI should show for a card that has not been acknowledged yet,
+    // or null if the server copy is current
+    public Mutation getPending(String id) {
+        Mutation mutation = pending.get(id);
+        return mutation != null ? mutation : inFlight.get(id);
+    }
+
+    public boolean hasPending(String id) {
+        return pending.containsKey(id) || inFlight.containsKey(id);
+    }
+
+    // Latest local state of every card not yet acknowledged
+    public List<Mutation> getAllPending() {
+        Map<String, Mutation> latest = new LinkedHashMap<>(inFlight);
+        latest.putAll(pending);
+        return new ArrayList<>(latest.values());
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public boolean isFlushing() {
+        return !inFlight.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty() && inFlight.isEmpty();
+    }
+
+    // Edits accepted so far, before coalescing
+    public int getEnqueuedCount() {
+        return enqueuedCount;
+    }
+
+    private void onBatchComplete(List<Mutation> batch, Exception error) {
+        for (Mutation mutation : batch) {
+            inFlight.remove(mutation.id);
+            if (error == null) {
+                // Written; a newer edit keeps its saved row
+                if (!pending.containsKey(mutation.id)) {
+                    persistence.delete(mutation.id);
+                }
+                continue;
+            }
+
+            // Failed; put it back underneath whatever was edited meanwhile
+            Mutation newer = pending.remove(mutation.id);
+            Mutation merged = newer == null ? mutation : merge(mutation, newer);
+            if (merged == null) {
+                persistence.delete(mutation.id);
+            } else {
+                pending.put(mutation.id, merged);
+                if (merged != newer) {
+                    persistence.save(merged);
+                }
+            }
+        }
+    }
+
+    // The single edit equivalent to older followed by newer, or null if they cancel out
+    private static Mutation merge(Mutation older, Mutation newer) {
+        if (older == null) {
+            return newer;
+        }
+        if (newer.delete) {
+            return older.created ? null : newer;
+        }
+        if (newer.created == older.created) {
+            return newer;
+        }
+        return Mutation.set(newer.id, newer.question, newer.answer, newer.category, newer.tags,
+                newer.updatedAt, older.created);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Decides which card to review next using SM-2 style scheduling.
+ *
+ * Every card's {@link ReviewState} sits in a binary min-heap ordered by due
+ * time, and each state remembers its heap position. The next card is the
+ * heap's root, and grading a card reschedules only that card with one sift,
+ * so both are O(log n) however large the deck is. Collecting everything due
+ * before a cut-off walks just the part of the heap that is due. Due times
+ * are mirrored in a parallel array so that walk and the sifts compare
+ * primitives instead of chasing a pointer per node.
+ *
+ * Not thread safe.
+ */
+public class ReviewScheduler {
+
+    public enum Grade {
+        AGAIN, HARD, GOOD, EASY
+    }
+
+    public static final long MINUTE_MS = 60_000L;
+    public static final long DAY_MS = 24 * 60 * MINUTE_MS;
+    // A forgotten card comes back within the same session
+    static final long RELEARN_DELAY_MS = 10 * MINUTE_MS;
+    static final double MIN_EASE = 1.3;
+    static final double MAX_INTERVAL_DAYS = 36500;
+
+    // Earliest due first, ties broken by id so the order is stable
+    private static final Comparator<ReviewState> BY_DUE = (a, b) -> {
+        int compare = Long.compare(a.getDue(), b.getDue());
+        return compare != 0 ? compare : a.getCardId().compareTo(b.getCardId());
+    };
+
+    private final Map<String, ReviewState> states = new HashMap<>();
+    private ReviewState[] heap = new ReviewState[16];
+    private long[] heapDue = new long[16];
+    private int size;
+
+    // Schedules a card that has never been reviewed; it is due at once
+    public ReviewState add(String cardId, long now) {
+        ReviewState existing = states.get(cardId);
+        if (existing != null) {
+            return existing;
+        }
+        ReviewState state = new ReviewState(cardId, now);
+        insert(state);
+        return state;
+    }
+
+    // Schedules a card with saved state, replacing any state it had
+    public void restore(ReviewState state) {
+        remove(state.getCardId());
+        insert(state);
+    }
+
+    public boolean remove(String cardId) {
+        ReviewState state = states.remove(cardId);
+        if (state == null) {
+            return false;
+        }
+        int index = state.heapIndex;
+        state.heapIndex = -1;
+        size--;
+        if (index != size) {
+            ReviewState last = heap[size];
+            heap[size] = null;
+            place(last, index);
+            siftUp(index);
+            siftDown(last.heapIndex);
+        } else {
+            heap[size] = null;
+        }
+        return true;
+    }
+
+    public ReviewState getState(String cardId) {
+        return states.get(cardId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The card to review now, or null if nothing is due yet
+    public ReviewState next(long now) {
+        return size > 0 && heap[0].getDue() <= now ? heap[0] : null;
+    }
+
+    // The card due soonest, due or not
+    public ReviewState peek() {
+        return size > 0 ? heap[0] : null;
+    }
+
+    // The count cards due soonest, in order, due or not. Best-first over the
+    // heap, so it costs O(count log count) whatever the size of the deck
+    public List<ReviewState> peek(int count) {
+        List<ReviewState> upcoming = new ArrayList<>(Math.min(count, size));
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> compare(a, heap[b]));
+        if (size > 0) frontier.add(0);
+        while (!frontier.isEmpty() && upcoming.size() < count) {
+            int index = frontier.poll();
+            upcoming.add(heap[index]);
+            int child = 2 * index + 1;
+            if (child < size) frontier.add(child);
+            if (child + 1 < size) frontier.add(child + 1);
+        }
+        return upcoming;
+    }
+
+    // Applies a grade to one card and moves it to its new place in the queue
+    public ReviewState grade(String cardId, Grade grade, long now) {
+        ReviewState state = states.get(cardId);
+        if (state == null) {
+            throw new IllegalArgumentException("Unknown card " + cardId);
+        }
+        long oldDue = state.getDue();
+        schedule(state, grade, now);
+        if (state.getDue() < oldDue) {
+            siftUp(state.heapIndex);
+        } else {
+            siftDown(state.heapIndex);
+        }
+        return state;
+    }
+
+    // Cards due at or before the cut-off, soonest first, e.g. the rest of today's queue
+    public List<ReviewState> dueBefore(long cutoff, int limit) {
+        List<ReviewState> due = new ArrayList<>();
+        walkDue(cutoff, due);
+        Collections.sort(due, BY_DUE);
+        return due.size() > limit ? new ArrayList<>(due.subList(0, limit)) : due;
+    }
+
+    public int countDue(long cutoff) {
+        return walkDue(cutoff, null);
+    }
+
+    // Depth-first over the heap, skipping subtrees whose root is not due.
+    // Adds the due states to out unless it is null and returns how many there are
+    private int walkDue(long cutoff, List<ReviewState> out) {
+        int count = 0;
+        int[] stack = new int[32];
+        int top = 0;
+        if (size > 0) stack[top++] = 0;
+        while (top > 0) {
+            int index = stack[--top];
+            if (heapDue[index] > cutoff) continue;
+            count++;
+            if (out != null) out.add(heap[index]);
+            int child = 2 * index + 1;
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (child + 1 < size) stack[top++] = child + 1;
+            if (child < size) stack[top++] = child;
+        }
+        return count;
+    }
+
+    // SM-2 with Anki-style grades: AGAIN resets the card, the others grow
+    // the interval by the ease factor, which HARD and EASY nudge down or up
+    static void schedule(ReviewState state, Grade grade, long now) {
+        double ease = state.getEase();
+        int repetitions = state.getRepetitions();
+        int lapses = state.getLapses();
+        double interval;
+        long due;
+
+        if (grade == Grade.AGAIN) {
+            if (repetitions > 0) lapses++;
+            state.update(0, Math.max(MIN_EASE, ease - 0.2), now + RELEARN_DELAY_MS, lapses, 0, now);
+            return;
+        }
+
+        double previous = state.getIntervalDays();
+        if (grade == Grade.HARD) {
+            ease = Math.max(MIN_EASE, ease - 0.15);
+            interval = repetitions == 0 ? 1 : Math.max(previous + 1, previous * 1.2);
+        } else {
+            if (repetitions == 0) {
+                interval = 1;
+            } else if (repetitions == 1) {
+                interval = 6;
+            } else {
+                interval = Math.max(previous + 1, previous * ease);
+            }
+            if (grade == Grade.EASY) {
+                ease += 0.15;
+                interval = repetitions == 0 ? 4 : interval * 1.3;
+            }
+        }
+        interval = Math.min(Math.round(interval), MAX_INTERVAL_DAYS);
+        due = now + (long) (interval * DAY_MS);
+        state.update(interval, ease, due, lapses, repetitions + 1, now);
+    }
+
+    private void insert(ReviewState state) {
+        states.put(state.getCardId(), state);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            heapDue = Arrays.copyOf(heapDue, size * 2);
+        }
+        place(state, size++);
+        siftUp(state.heapIndex);
+    }
+
+    private void place(ReviewState state, int index) {
+        heap[index] = state;
+        heapDue[index] = state.getDue();
+        state.heapIndex = index;
+    }
+
+    private void siftUp(int index) {
+        ReviewState state = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (compare(parent, state) <= 0) break;
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(state, index);
+    }
+
+    private void siftDown(int index) {
+        ReviewState state = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && compare(child + 1, heap[child]) < 0) {
+                child++;
+            }
+            if (compare(child, state) >= 0) break;
+            place(heap[child], index);
+            index = child;
+        }
+        place(state, index);
+    }
+
+    // BY_DUE between the state at a heap position and another state
+    private int compare(int index, ReviewState state) {
+        int compare = Long.compare(heapDue[index], state.getDue());
+        return compare != 0 ? compare : heap[index].getCardId().compareTo(state.getCardId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.flashcards;
+
+/**
+ * Spaced-repetition state of one card: when it is due next and how quickly
+ * its interval grows. Owned by {@link ReviewScheduler}, which updates it when
+ * the card is graded.
+ */
+public class ReviewState {
+
+    public static final double INITIAL_EASE = 2.5;
+
+    private final String cardId;
+    private double intervalDays;
+    private double ease = INITIAL_EASE;
+    private long due;
+    private int lapses;
+    private int repetitions;  // Successful reviews in a row
+    private long lastReviewed;
+    // Position in the scheduler's heap, -1 when not scheduled
+    int heapIndex = -1;
+
+    public ReviewState(String cardId, long due) {
+        this.cardId = cardId;
+        this.due = due;
+    }
+
+    // Restores saved state
+    public ReviewState(String cardId, double intervalDays, double ease, long due, int lapses,
+                       int repetitions, long lastReviewed) {
+        this.cardId = cardId;
+        this.intervalDays = intervalDays;
+        this.ease = ease;
+        this.due = due;
+        this.lapses = lapses;
+        this.repetitions = repetitions;
+        this.lastReviewed = lastReviewed;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public double getIntervalDays() {
+        return intervalDays;
+    }
+
+    public double getEase() {
+        return ease;
+    }
+
+    public long getDue() {
+        return due;
+    }
+
+    public int getLapses() {
+        return lapses;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public long getLastReviewed() {
+        return lastReviewed;
+    }
+
+    public boolean isNew() {
+        return lastReviewed == 0;
+    }
+
+    void update(double intervalDays, double ease, long due, int lapses, int repetitions, long lastReviewed) {
+        this.intervalDays = intervalDays;
+        this.ease = ease;
+        this.due = due;
+        this.lapses = lapses;
+        this.repetitions = repetitions;
+        this.lastReviewed = lastReviewed;
+    }
+}
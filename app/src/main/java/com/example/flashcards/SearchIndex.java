@@ -0,0 +1,233 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over pre-normalized card text, kept up to date incrementally
+ * as cards are added, edited or deleted.
+ *
+ * A query of three or more bytes only visits the cards in the shortest
+ * posting list of its trigrams and confirms each candidate with a substring
+ * check on the already lowercased text, so its cost follows the number of
+ * candidates rather than the size of the deck. Shorter queries have no
+ * selective trigram and fall back to scanning the normalized text, which
+ * still allocates nothing per card.
+ *
+ * Cards are held in columns by ordinal: the card itself, its normalized
+ * text in a shared {@link CardText} buffer, and its id in an
+ * {@link OrdinalMap}, so a large deck costs a few ints per card on top of
+ * its text rather than an entry object and two lowercased strings.
+ */
+public class SearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    // How many entries are visited between cancellation checks
+    private static final int CANCEL_CHECK_INTERVAL = 512;
+
+    // Lets a long running search be aborted and report its first matches early
+    public interface Progress {
+        boolean isCancelled();
+        void onFirstMatches(List<Flashcard> firstMatches);
+    }
+
+    // Growable list of entry ordinals; removed entries are skipped until the next compaction
+    private static class Postings {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(ordinals, 0, grown, 0, size);
+                ordinals = grown;
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+
+    // By ordinal; null once the card is removed or replaced by an edit
+    private Flashcard[] cards = new Flashcard[64];
+    private final CardText text = new CardText();
+    private final OrdinalMap ordinals = new OrdinalMap();
+    private final Map<Long, Postings> postingsByGram = new HashMap<>();
+    private final Comparator<Flashcard> order;
+    private int removedCount;
+
+    public SearchIndex() {
+        this(FlashcardStore.BY_ID);
+    }
+
+    // Results are returned sorted with the same order the list displays
+    public SearchIndex(Comparator<Flashcard> order) {
+        this.order = order;
+    }
+
+    public void add(Flashcard flashcard) {
+        int existing = ordinals.get(flashcard.getId());
+        if (existing != OrdinalMap.MISSING) {
+            if (cards[existing].hasSameContent(flashcard)) {
+                return;
+            }
+            tombstone(existing);
+        }
+
+        int ordinal = text.add(flashcard.getQuestion(), flashcard.getAnswer());
+        if (ordinal == cards.length) {
+            cards = Arrays.copyOf(cards, ordinal * 2);
+        }
+        cards[ordinal] = flashcard;
+        ordinals.put(flashcard.getId(), ordinal);
+        indexGrams(ordinal);
+        compactIfNeeded();
+    }
+
+    public void remove(String id) {
+        int existing = ordinals.remove(id);
+        if (existing != OrdinalMap.MISSING) {
+            tombstone(existing);
+            compactIfNeeded();
+        }
+    }
+
+    public void clear() {
+        cards = new Flashcard[64];
+        text.clear();
+        ordinals.clear();
+        postingsByGram.clear();
+        removedCount = 0;
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+
+    public List<Flashcard> search(String query) {
+        return search(query, null, 0);
+    }
+
+    // Returns null if the search was cancelled. When firstMatchCount > 0 the
+    // progress is handed that many matches, sorted, as soon as they are found.
+    public List<Flashcard> search(String query, Progress progress, int firstMatchCount) {
+        byte[] normalizedQuery = CardText.encode(query.trim());
+        List<Flashcard> results = new ArrayList<>();
+        if (normalizedQuery.length == 0) {
+            return results;
+        }
+
+        int[] candidates = null;
+        int candidateCount = text.size();
+        if (normalizedQuery.length >= GRAM_LENGTH) {
+            Postings postings = rarestPostings(normalizedQuery);
+            if (postings == null) {
+                return results;
+            }
+            candidates = postings.ordinals;
+            candidateCount = postings.size;
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            if (progress != null && i % CANCEL_CHECK_INTERVAL == 0 && progress.isCancelled()) {
+                return null;
+            }
+            int ordinal = candidates == null ? i : candidates[i];
+            if (cards[ordinal] != null && text.contains(ordinal, normalizedQuery)) {
+                results.add(cards[ordinal]);
+                if (results.size() == firstMatchCount && progress != null) {
+                    List<Flashcard> firstMatches = new ArrayList<>(results);
+                    Collections.sort(firstMatches, order);
+                    progress.onFirstMatches(firstMatches);
+                }
+            }
+        }
+
+        if (progress != null && progress.isCancelled()) {
+            return null;
+        }
+        Collections.sort(results, order);
+        return results;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // Shortest posting list among the query's trigrams, or null if any trigram never occurs
+    private Postings rarestPostings(byte[] query) {
+        Postings rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= query.length; i++) {
+            Postings postings = postingsByGram.get(gram(query, i));
+            if (postings == null) {
+                return null;
+            }
+            if (rarest == null || postings.size < rarest.size) {
+                rarest = postings;
+            }
+        }
+        return rarest;
+    }
+
+    private void indexGrams(int ordinal) {
+        Set<Long> grams = new HashSet<>();
+        byte[] bytes = text.bytes();
+        collectGrams(bytes, text.questionStart(ordinal), text.answerStart(ordinal), grams);
+        collectGrams(bytes, text.answerStart(ordinal), text.end(ordinal), grams);
+        for (Long gram : grams) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings == null) {
+                postings = new Postings();
+                postingsByGram.put(gram, postings);
+            }
+            postings.add(ordinal);
+        }
+    }
+
+    private void tombstone(int ordinal) {
+        cards[ordinal] = null;
+        text.remove(ordinal);
+        removedCount++;
+    }
+
+    // Rebuild once dead ordinals outnumber live ones, keeping edits amortized O(card length)
+    private void compactIfNeeded() {
+        if (removedCount < 1024 || removedCount < ordinals.size()) {
+            return;
+        }
+        int[] remap = text.compact();
+        Flashcard[] compacted = new Flashcard[Math.max(64, text.size() * 2)];
+        for (int ordinal = 0; ordinal < remap.length; ordinal++) {
+            if (remap[ordinal] >= 0) {
+                compacted[remap[ordinal]] = cards[ordinal];
+                ordinals.put(cards[ordinal].getId(), remap[ordinal]);
+            }
+        }
+        cards = compacted;
+        removedCount = 0;
+        postingsByGram.clear();
+        for (int ordinal = 0; ordinal < text.size(); ordinal++) {
+            indexGrams(ordinal);
+        }
+    }
+
+    // Trigrams of [from, to); a query's trigrams are taken the same way, so
+    // text containing the query has every one of them
+    private static void collectGrams(byte[] bytes, int from, int to, Set<Long> grams) {
+        for (int i = from; i + GRAM_LENGTH <= to; i++) {
+            grams.add(gram(bytes, i));
+        }
+    }
+
+    private static long gram(byte[] bytes, int start) {
+        return ((bytes[start] & 0xFFL) << 16)
+                | ((bytes[start + 1] & 0xFFL) << 8)
+                | (bytes[start + 2] & 0xFFL);
+    }
+}
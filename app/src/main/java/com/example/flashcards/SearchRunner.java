@@ -0,0 +1,97 @@
+package com.example.flashcards;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs searches on a dedicated background thread that also owns the
+ * {@link SearchIndex}, so index updates and queries never race and never
+ * block the UI thread.
+ *
+ * Every new search cancels the one before it: the running query notices at
+ * its next cancellation check and stale results are never delivered. On large
+ * decks the first screenful of matches is delivered before the full list.
+ */
+public class SearchRunner {
+
+    // Decks smaller than this finish fast enough that a partial result would only cause flicker
+    static final int STREAMING_THRESHOLD = 5000;
+    static final int FIRST_MATCH_COUNT = 30;
+
+    public interface Listener {
+        // complete is false for an early first page of matches
+        void onResults(List<Flashcard> results, boolean complete, long latencyNanos);
+    }
+
+    private final SearchIndex index = new SearchIndex();
+    private final ExecutorService worker;
+    private final Executor resultExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // resultExecutor delivers results, normally onto the main thread
+    public SearchRunner(Executor resultExecutor) {
+        this(resultExecutor, Executors.newSingleThreadExecutor());
+    }
+
+    // worker must be single threaded; it is the only thread that touches the index
+    SearchRunner(Executor resultExecutor, ExecutorService worker) {
+        this.resultExecutor = resultExecutor;
+        this.worker = worker;
+    }
+
+    public void add(Flashcard flashcard) {
+        worker.execute(() -> index.add(flashcard));
+    }
+
+    public void remove(String id) {
+        worker.execute(() -> index.remove(id));
+    }
+
+    public void search(String query, Listener listener) {
+        long startNanos = System.nanoTime();
+        int searchGeneration = generation.incrementAndGet();
+        worker.execute(() -> {
+            if (generation.get() != searchGeneration) return;
+
+            SearchIndex.Progress progress = new SearchIndex.Progress() {
+                @Override
+                public boolean isCancelled() {
+                    return generation.get() != searchGeneration;
+                }
+
+                @Override
+                public void onFirstMatches(List<Flashcard> firstMatches) {
+                    deliver(searchGeneration, listener, firstMatches, false, startNanos);
+                }
+            };
+            int firstMatchCount = index.size() >= STREAMING_THRESHOLD ? FIRST_MATCH_COUNT : 0;
+            List<Flashcard> results = index.search(query, progress, firstMatchCount);
+            if (results != null) {
+                deliver(searchGeneration, listener, results, true, startNanos);
+            }
+        });
+    }
+
+    // Invalidates the running search without starting a new one
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void deliver(int searchGeneration, Listener listener, List<Flashcard> results,
+                         boolean complete, long startNanos) {
+        resultExecutor.execute(() -> {
+            // A newer search may have started while this result was in flight
+            if (generation.get() == searchGeneration) {
+                listener.onResults(results, complete, System.nanoTime() - startNanos);
+            }
+        });
+    }
+}
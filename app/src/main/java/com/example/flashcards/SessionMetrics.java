@@ -0,0 +1,99 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answer latencies of one study session. For each card it records how long
+ * the question was on screen before the answer was revealed, and how long
+ * until the card was graded.
+ */
+public class SessionMetrics {
+
+    public static class Review {
+        public final String cardId;
+        public final ReviewScheduler.Grade grade;
+        public final long revealMs;
+        public final long gradeMs;
+
+        Review(String cardId, ReviewScheduler.Grade grade, long revealMs, long gradeMs) {
+            this.cardId = cardId;
+            this.grade = grade;
+            this.revealMs = revealMs;
+            this.gradeMs = gradeMs;
+        }
+    }
+
+    private final List<Review> reviews = new ArrayList<>();
+    private final int[] gradeCounts = new int[ReviewScheduler.Grade.values().length];
+    private long shownAtNanos = -1;
+    private long revealedAtNanos = -1;
+
+    public void onCardShown(long nanos) {
+        shownAtNanos = nanos;
+        revealedAtNanos = -1;
+    }
+
+    public void onAnswerRevealed(long nanos) {
+        if (shownAtNanos >= 0 && revealedAtNanos < 0) {
+            revealedAtNanos = nanos;
+        }
+    }
+
+    public void onGraded(String cardId, ReviewScheduler.Grade grade, long nanos) {
+        if (shownAtNanos < 0) return;
+        long revealed = revealedAtNanos < 0 ? nanos : revealedAtNanos;
+        reviews.add(new Review(cardId, grade, (revealed - shownAtNanos) / 1_000_000,
+                (nanos - shownAtNanos) / 1_000_000));
+        gradeCounts[grade.ordinal()]++;
+        shownAtNanos = -1;
+        revealedAtNanos = -1;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public int getReviewedCount() {
+        return reviews.size();
+    }
+
+    public int getGradeCount(ReviewScheduler.Grade grade) {
+        return gradeCounts[grade.ordinal()];
+    }
+
+    // Nearest-rank percentile of the time to reveal, 0 with no reviews
+    public long revealPercentileMs(int percentile) {
+        long[] values = new long[reviews.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reviews.get(i).revealMs;
+        }
+        return percentile(values, percentile);
+    }
+
+    public long gradePercentileMs(int percentile) {
+        long[] values = new long[reviews.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reviews.get(i).gradeMs;
+        }
+        return percentile(values, percentile);
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "%d cards, reveal p50 %d ms p90 %d ms, grade p50 %d ms p90 %d ms, again %d hard %d good %d easy %d",
+                reviews.size(), revealPercentileMs(50), revealPercentileMs(90),
+                gradePercentileMs(50), gradePercentileMs(90),
+                getGradeCount(ReviewScheduler.Grade.AGAIN), getGradeCount(ReviewScheduler.Grade.HARD),
+                getGradeCount(ReviewScheduler.Grade.GOOD), getGradeCount(ReviewScheduler.Grade.EASY));
+    }
+
+    static long percentile(long[] values, int percentile) {
+        if (values.length == 0) return 0;
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percentile / 100.0 * values.length);
+        return values[Math.max(0, Math.min(values.length - 1, rank - 1))];
+    }
+}
@@ -1,34 +0,0 @@
-package com.example.flashcards;
-
-import android.content.Intent;
-import android.os.Bundle;
-import android.os.Handler;
-import androidx.appcompat.app.AppCompatActivity;
-import androidx.appcompat.app.AppCompatDelegate;
-import com.google.firebase.auth.FirebaseAuth;
-
-public class SplashActivity extends AppCompatActivity {
-    private FirebaseAuth auth;
-
-    private static final int SPLASH_DURATION = 2000; // 2 seconds
-
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-
-        // Force Light Mode regardless of system settings
-        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
-
-        setContentView(R.layout.activity_splash);
-
-        new Handler().postDelayed(() -> {
-            // Check if user is logged in
-            if (FirebaseAuth.getInstance().getCurrentUser() != null) {
-                startActivity(new Intent(SplashActivity.this, FlashcardListActivity.class));
-            } else {
-                startActivity(new Intent(SplashActivity.this, LoginActivity.class));
-            }
-            finish();
-        }, SPLASH_DURATION);
-    }
-}
@@ -0,0 +1,36 @@
+package com.example.flashcards;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out a RecyclerView item id for each Firestore document id. Ids are
+ * numbered in the order keys are first seen and never reused, so a card
+ * keeps its item id across list updates, filtered or not, for as long as it
+ * stays in its deck. A card forgotten after leaving the deck is a new row,
+ * with a new id, if it ever comes back.
+ *
+ * Not thread safe.
+ */
+public class StableIds {
+
+    private final Map<String, Long> ids = new HashMap<>();
+    private long nextId;
+
+    public long idFor(String key) {
+        Long id = ids.get(key);
+        if (id == null) {
+            id = nextId++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    public void forget(String key) {
+        ids.remove(key);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
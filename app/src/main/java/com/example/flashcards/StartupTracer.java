@@ -0,0 +1,40 @@
+package com.example.flashcards;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records cold start phases as milliseconds since the process was forked, so
+ * "process start to first card drawn" can be read straight from logcat
+ * ({@code adb logcat -s Startup}). Each phase is only recorded once per process.
+ */
+public final class StartupTracer {
+
+    private static final String TAG = "Startup";
+
+    public static final String LAUNCHER_CREATED = "launcher_created";
+    public static final String FIREBASE_READY = "firebase_ready";
+    public static final String AUTH_READY = "auth_ready";
+    public static final String CACHE_LOADED = "cache_loaded";
+    public static final String ROUTED = "routed";
+    public static final String LIST_CREATED = "list_created";
+    public static final String FIRST_CARD_DRAWN = "first_card_drawn";
+
+    private static final Set<String> recorded = new HashSet<>();
+
+    private StartupTracer() {}
+
+    public static synchronized void mark(String phase) {
+        if (!recorded.add(phase)) return;
+        long sinceProcessStart = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        Log.i(TAG, phase + " at " + sinceProcessStart + " ms");
+    }
+
+    public static synchronized boolean isMarked(String phase) {
+        return recorded.contains(phase);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.flashcards;
+
+import android.content.Context;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Warms what the list's first screen needs while the launcher routes to it:
+ * the Firestore instance and the first page of the signed-in user's cached
+ * cards for the deck they last had open, read in parallel. The list picks
+ * up the page if it is ready when the deck opens and reads the rest of the
+ * cache behind it.
+ */
+public final class StartupWarmup {
+
+    private static List<Flashcard> warmedFlashcards;
+    private static String warmedDeckKey;
+
+    private StartupWarmup() {}
+
+    public static void start(Context context, String userId) {
+        Context appContext = context.getApplicationContext();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        executor.execute(() -> {
+            FirebaseFirestore.getInstance();
+            StartupTracer.mark(StartupTracer.FIREBASE_READY);
+        });
+        executor.execute(() -> {
+            // Opening the database and reading the first cards is the slowest local step
+            String deckKey = Deck.openDeckKey(appContext, userId);
+            List<Flashcard> flashcards = FlashcardCache.getInstance(appContext)
+                    .loadFirst(deckKey, FlashcardRepository.pageSize(appContext));
+            synchronized (StartupWarmup.class) {
+                warmedFlashcards = flashcards;
+                warmedDeckKey = deckKey;
+            }
+            StartupTracer.mark(StartupTracer.CACHE_LOADED);
+        });
+        executor.shutdown();
+    }
+
+    // Cards read during warmup for this deck, handed out once; null if there are none yet
+    public static synchronized List<Flashcard> takeFlashcards(String deckKey) {
+        if (warmedFlashcards == null || !deckKey.equals(warmedDeckKey)) {
+            return null;
+        }
+        List<Flashcard> flashcards = warmedFlashcards;
+        warmedFlashcards = null;
+        warmedDeckKey = null;
+        return flashcards;
+    }
+}
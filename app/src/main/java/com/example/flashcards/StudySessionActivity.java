@@ -0,0 +1,202 @@
+package com.example.flashcards;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows the open deck's due cards one at a time in the order {@link ReviewScheduler}
+ * picks them. The next few cards are measured ahead of time into a
+ * {@link TextLayoutCache}, so moving on only swaps the text and resets the flip.
+ * Cards graded AGAIN come back once their relearn delay is over, so the
+ * session only ends when none are left.
+ * Answer latencies are kept in {@link SessionMetrics} and logged when the
+ * session ends.
+ */
+public class StudySessionActivity extends AppCompatActivity {
+
+    private static final String TAG = "StudySession";
+    // Cards measured ahead of the one on screen
+    private static final int PREFETCH_COUNT = 3;
+
+    private TextView tvProgress, tvQuestion, tvAnswer, tvDone;
+    private View studyCard, gradeButtons;
+    private CardFlipper flipper;
+    private TextLayoutCache textCache;
+    private ExecutorService backgroundExecutor;
+    private FlashcardCache cache;
+    private String deckKey;
+
+    private final ReviewScheduler scheduler = new ReviewScheduler();
+    private final Map<String, Flashcard> cardsById = new HashMap<>();
+    private final SessionMetrics metrics = new SessionMetrics();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Brings back cards graded AGAIN once their relearn delay is over
+    private final Runnable recheck = this::showNext;
+    private ReviewState current;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_study_session);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setTitle("Study");
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        tvProgress = findViewById(R.id.tvProgress);
+        tvQuestion = findViewById(R.id.tvQuestion);
+        tvAnswer = findViewById(R.id.tvAnswer);
+        tvDone = findViewById(R.id.tvDone);
+        studyCard = findViewById(R.id.studyCard);
+        gradeButtons = findViewById(R.id.gradeButtons);
+
+        flipper = new CardFlipper(findViewById(R.id.cardFront), findViewById(R.id.cardBack));
+        studyCard.setOnClickListener(v -> revealAnswer());
+        findViewById(R.id.btnAgain).setOnClickListener(v -> grade(ReviewScheduler.Grade.AGAIN));
+        findViewById(R.id.btnHard).setOnClickListener(v -> grade(ReviewScheduler.Grade.HARD));
+        findViewById(R.id.btnGood).setOnClickListener(v -> grade(ReviewScheduler.Grade.GOOD));
+        findViewById(R.id.btnEasy).setOnClickListener(v -> grade(ReviewScheduler.Grade.EASY));
+
+        backgroundExecutor = Executors.newSingleThreadExecutor();
+        textCache = new TextLayoutCache(PREFETCH_COUNT + 1, backgroundExecutor, handler::post);
+        textCache.setParams(tvQuestion);
+        cache = FlashcardCache.getInstance(this);
+        deckKey = Deck.openDeckKey(this, FirebaseAuth.getInstance().getCurrentUser().getUid());
+
+        studyCard.setVisibility(View.INVISIBLE);
+        loadDeck();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    // Cards come from memory when the list has them, otherwise from the
+    // on-device cache, which the list keeps current. Review state is only cached
+    private void loadDeck() {
+        List<Flashcard> inMemory = FlashcardRepository.getInstance(this).peekCards(deckKey);
+        backgroundExecutor.execute(() -> {
+            List<Flashcard> cards = inMemory != null ? inMemory : cache.load(deckKey);
+            List<ReviewState> states = cache.loadReviewStates(deckKey);
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                long now = System.currentTimeMillis();
+                for (Flashcard card : cards) {
+                    cardsById.put(card.getId(), card);
+                }
+                for (ReviewState state : states) {
+                    if (cardsById.containsKey(state.getCardId())) {
+                        scheduler.restore(state);
+                    }
+                }
+                // Cards never studied before are due straight away
+                for (Flashcard card : cards) {
+                    scheduler.add(card.getId(), now);
+                }
+                showNext();
+            });
+        });
+    }
+
+    private void showNext() {
+        handler.removeCallbacks(recheck);
+        long now = System.currentTimeMillis();
+        current = scheduler.next(now);
+        gradeButtons.setVisibility(View.INVISIBLE);
+        if (current == null) {
+            showDone();
+            return;
+        }
+
+        // Swap in the prepared text and turn the card back to its question
+        Flashcard card = cardsById.get(current.getCardId());
+        flipper.reset(true);
+        textCache.bind(card, tvQuestion, tvAnswer);
+        studyCard.setVisibility(View.VISIBLE);
+        tvDone.setVisibility(View.GONE);
+        tvProgress.setText(scheduler.countDue(now) + " cards due");
+        metrics.onCardShown(SystemClock.elapsedRealtimeNanos());
+
+        // Measure the cards after this one while the user thinks
+        List<Flashcard> upcoming = new ArrayList<>(PREFETCH_COUNT);
+        for (ReviewState state : scheduler.peek(PREFETCH_COUNT + 1)) {
+            if (state != current) {
+                upcoming.add(cardsById.get(state.getCardId()));
+            }
+        }
+        textCache.prefetch(upcoming);
+    }
+
+    private void revealAnswer() {
+        if (current == null || !flipper.isShowingFront()) return;
+        metrics.onAnswerRevealed(SystemClock.elapsedRealtimeNanos());
+        flipper.flip();
+        gradeButtons.setVisibility(View.VISIBLE);
+    }
+
+    private void grade(ReviewScheduler.Grade grade) {
+        if (current == null) return;
+        metrics.onGraded(current.getCardId(), grade, SystemClock.elapsedRealtimeNanos());
+        ReviewState state = scheduler.grade(current.getCardId(), grade, System.currentTimeMillis());
+        // ReviewState is mutated by later grades, so save a copy of this one
+        ReviewState saved = new ReviewState(state.getCardId(), state.getIntervalDays(), state.getEase(),
+                state.getDue(), state.getLapses(), state.getRepetitions(), state.getLastReviewed());
+        backgroundExecutor.execute(() -> cache.saveReviewState(deckKey, saved));
+        showNext();
+    }
+
+    private void showDone() {
+        studyCard.setVisibility(View.INVISIBLE);
+        tvDone.setVisibility(View.VISIBLE);
+        ReviewState nextDue = scheduler.peek();
+        tvProgress.setText(nextDue == null ? ""
+                : "Next card due " + DateUtils.getRelativeTimeSpanString(nextDue.getDue()));
+
+        // A card graded AGAIN is due within minutes, so the session waits for it
+        long wait = nextDue == null ? Long.MAX_VALUE : nextDue.getDue() - System.currentTimeMillis();
+        if (wait <= ReviewScheduler.RELEARN_DELAY_MS) {
+            handler.postDelayed(recheck, Math.max(0, wait));
+            textCache.prefetch(Collections.singletonList(cardsById.get(nextDue.getCardId())));
+            tvDone.setText("Reviewed " + metrics.getReviewedCount() + " cards. Missed cards come back "
+                    + DateUtils.getRelativeTimeSpanString(nextDue.getDue()));
+            return;
+        }
+        tvDone.setText(metrics.getReviewedCount() == 0
+                ? "No cards are due"
+                : "Done! Reviewed " + metrics.getReviewedCount() + " cards");
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(recheck);
+        if (metrics.getReviewedCount() > 0) {
+            Log.i(TAG, metrics.summary());
+        }
+        backgroundExecutor.shutdown();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Card ids by category and by tag, so a filtered list is a set lookup
+ * instead of a pass over every card. Kept up to date alongside
+ * {@link FlashcardStore}: call {@link #update} for every card upserted and
+ * {@link #remove} for every card removed.
+ *
+ * Not thread safe.
+ */
+public class TagIndex {
+
+    private final Map<String, Set<String>> byCategory = new HashMap<>();
+    private final Map<String, Set<String>> byTag = new HashMap<>();
+    // The version of each card that is indexed, to unindex it on the next update
+    private final Map<String, Flashcard> indexed = new HashMap<>();
+
+    public void update(Flashcard card) {
+        Flashcard old = indexed.put(card.getId(), card);
+        if (old != null) {
+            unindex(old);
+        }
+        if (card.getCategory() != null) {
+            add(byCategory, card.getCategory(), card.getId());
+        }
+        for (String tag : card.getTags()) {
+            add(byTag, tag, card.getId());
+        }
+    }
+
+    public void remove(String id) {
+        Flashcard old = indexed.remove(id);
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    public void clear() {
+        byCategory.clear();
+        byTag.clear();
+        indexed.clear();
+    }
+
+    // Ids of the cards the filter matches; do not modify
+    public Set<String> cardIds(CardFilter filter) {
+        Map<String, Set<String>> index = filter.field == CardFilter.Field.CATEGORY ? byCategory : byTag;
+        Set<String> ids = index.get(filter.value);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    // Category to card count, in name order
+    public SortedMap<String, Integer> categoryCounts() {
+        return counts(byCategory);
+    }
+
+    public SortedMap<String, Integer> tagCounts() {
+        return counts(byTag);
+    }
+
+    // "a, b ,, a" becomes [a, b]: trimmed, no blanks, no repeats, in the order typed
+    public static List<String> parseTags(String text) {
+        if (text == null || text.trim().isEmpty()) return Collections.emptyList();
+        Set<String> tags = new LinkedHashSet<>();
+        for (String tag : text.split(",")) {
+            tag = tag.trim();
+            if (!tag.isEmpty()) {
+                tags.add(tag);
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    public static String joinTags(List<String> tags) {
+        return String.join(", ", tags);
+    }
+
+    private void unindex(Flashcard card) {
+        if (card.getCategory() != null) {
+            discard(byCategory, card.getCategory(), card.getId());
+        }
+        for (String tag : card.getTags()) {
+            discard(byTag, tag, card.getId());
+        }
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids == null) {
+            ids = new HashSet<>();
+            index.put(key, ids);
+        }
+        ids.add(id);
+    }
+
+    private static void discard(Map<String, Set<String>> index, String key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static SortedMap<String, Integer> counts(Map<String, Set<String>> index) {
+        SortedMap<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+}
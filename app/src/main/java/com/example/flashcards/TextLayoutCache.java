@@ -0,0 +1,157 @@
+package com.example.flashcards;
+
+import android.util.LruCache;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Card text measured ahead of time with {@link PrecomputedTextCompat}, so
+ * binding a card hands prepared text to its TextViews instead of measuring
+ * glyphs on the main thread. Used by the list rows and the study session.
+ *
+ * Entries are keyed by card id and remember a hash of the text they were
+ * measured from; an edited card misses and is measured again. Measuring runs
+ * on the background executor, everything else on the main thread.
+ *
+ * Both faces of a card share one text style, so one set of params measures
+ * both and a row can take its answer text only once its back face exists.
+ */
+public class TextLayoutCache {
+
+    static class Entry {
+        final int contentHash;
+        final String question;
+        final String answer;
+        final PrecomputedTextCompat questionText;
+        final PrecomputedTextCompat answerText;
+
+        Entry(Flashcard card, PrecomputedTextCompat questionText, PrecomputedTextCompat answerText) {
+            this.contentHash = contentHash(card);
+            this.question = card.getQuestion();
+            this.answer = card.getAnswer();
+            this.questionText = questionText;
+            this.answerText = answerText;
+        }
+
+        boolean matches(Flashcard card) {
+            return contentHash == contentHash(card)
+                    && Objects.equals(question, card.getQuestion())
+                    && Objects.equals(answer, card.getAnswer());
+        }
+    }
+
+    private final LruCache<String, Entry> entries;
+    private final Set<String> inProgress = new HashSet<>();
+    private final Executor background;
+    private final Executor main;
+    private PrecomputedTextCompat.Params params;
+
+    public TextLayoutCache(int maxEntries, Executor background, Executor main) {
+        entries = new LruCache<>(maxEntries);
+        this.background = background;
+        this.main = main;
+    }
+
+    public boolean hasParams() {
+        return params != null;
+    }
+
+    // Text is measured for this view's styling; setPrecomputedText rejects text
+    // measured with other params, so views bound later must be styled the same
+    public void setParams(TextView textView) {
+        params = TextViewCompat.getTextMetricsParams(textView);
+        entries.evictAll();
+    }
+
+    // Measures any of these cards that are not cached yet
+    public void prefetch(List<Flashcard> cards) {
+        if (this.params == null) return;
+        PrecomputedTextCompat.Params params = this.params;
+        for (Flashcard card : cards) {
+            String id = card.getId();
+            Entry existing = entries.get(id);
+            if (inProgress.contains(id) || (existing != null && existing.matches(card))) {
+                continue;
+            }
+            inProgress.add(id);
+            background.execute(() -> {
+                PrecomputedTextCompat question = PrecomputedTextCompat.create(text(card.getQuestion()), params);
+                PrecomputedTextCompat answer = PrecomputedTextCompat.create(text(card.getAnswer()), params);
+                main.execute(() -> {
+                    inProgress.remove(id);
+                    // Params changed while measuring; the text no longer fits the views
+                    if (params == this.params) {
+                        entries.put(id, new Entry(card, question, answer));
+                    }
+                });
+            });
+        }
+    }
+
+    // Shows the card, with prepared text when it is cached and still current.
+    // answerView may be null while the back face is not inflated.
+    // Returns true if nothing had to be measured on the main thread.
+    public boolean bind(Flashcard card, TextView questionView, TextView answerView) {
+        boolean prepared = bindQuestion(card, questionView);
+        if (answerView != null) {
+            bindAnswer(card, answerView);
+        }
+        return prepared;
+    }
+
+    public boolean bindQuestion(Flashcard card, TextView questionView) {
+        Entry entry = currentEntry(card);
+        if (entry != null) {
+            TextViewCompat.setPrecomputedText(questionView, entry.questionText);
+        } else {
+            questionView.setText(card.getQuestion());
+        }
+        return entry != null;
+    }
+
+    // Shows just the answer, for a back face inflated after the card was bound
+    public boolean bindAnswer(Flashcard card, TextView answerView) {
+        Entry entry = currentEntry(card);
+        if (entry != null) {
+            TextViewCompat.setPrecomputedText(answerView, entry.answerText);
+        } else {
+            answerView.setText(card.getAnswer());
+        }
+        return entry != null;
+    }
+
+    // Drops a card's text once it is edited or deleted
+    public void invalidate(String id) {
+        entries.remove(id);
+    }
+
+    public void clear() {
+        entries.evictAll();
+    }
+
+    // The card's entry if its text has not changed since it was measured
+    private Entry currentEntry(Flashcard card) {
+        Entry entry = entries.get(card.getId());
+        if (entry != null && !entry.matches(card)) {
+            entries.remove(card.getId());
+            return null;
+        }
+        return entry;
+    }
+
+    static int contentHash(Flashcard card) {
+        return 31 * Objects.hashCode(card.getQuestion()) + Objects.hashCode(card.getAnswer());
+    }
+
+    private static CharSequence text(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.flashcards;
+
+import org.junit.Assume;
+
+// Benchmarks are slow and print their results, so the unit test run skips
+// them unless asked: ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*Benchmark" -i
+final class Benchmarks {
+
+    private Benchmarks() {}
+
+    // Call from a @BeforeClass method
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BulkImporterTest {
+
+    private static final int CARD_COUNT = 2345;
+
+    @Test
+    public void writesEveryCardInBoundedBatches() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> writtenIndexes = new ConcurrentLinkedQueue<>();
+        ExecutorService server = Executors.newFixedThreadPool(8);
+
+        BulkImporter importer = new BulkImporter((firstIndex, cards, done) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            assertTrue(cards.size() <= 500);
+            server.execute(() -> {
+                for (int i = 0; i < cards.size(); i++) {
+                    writtenIndexes.add(firstIndex + i);
+                }
+                inFlight.decrementAndGet();
+                done.onComplete(null);
+            });
+        }, 500, 3);
+
+        RecordingListener listener = new RecordingListener();
+        importer.run(parser(CARD_COUNT), 0, listener);
+        server.shutdown();
+
+        assertEquals(CARD_COUNT, listener.finished);
+        assertEquals(CARD_COUNT, writtenIndexes.size());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void failedBatch_reportsContiguousResumePoint() {
+        // Batch starting at 500 fails after the batch at 1000 already landed
+        BulkImporter importer = new BulkImporter((firstIndex, cards, done) ->
+                done.onComplete(firstIndex == 500 ? new Exception("network") : null), 500, 4);
+
+        RecordingListener listener = new RecordingListener();
+        importer.run(parser(CARD_COUNT), 0, listener);
+
+        assertEquals(-1, listener.finished);
+        assertEquals(500, listener.failedAt);
+    }
+
+    @Test
+    public void resume_skipsCommittedCardsAndKeepsPositions() {
+        List<Long> firstIndexes = new ArrayList<>();
+        List<String> firstQuestions = new ArrayList<>();
+        BulkImporter importer = new BulkImporter((firstIndex, cards, done) -> {
+            firstIndexes.add(firstIndex);
+            firstQuestions.add(cards.get(0).getQuestion());
+            done.onComplete(null);
+        }, 500, 2);
+
+        RecordingListener listener = new RecordingListener();
+        importer.run(parser(CARD_COUNT), 1000, listener);
+
+        assertEquals(Long.valueOf(1000), firstIndexes.get(0));
+        assertEquals("q1000", firstQuestions.get(0));
+        assertEquals(CARD_COUNT, listener.finished);
+        assertEquals(3, firstIndexes.size());
+    }
+
+    @Test
+    public void readError_waitsForBatchesInFlightBeforeFailing() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            csv.append('q').append(i).append(",a").append(i).append('\n');
+        }
+        // Fails partway through row 450, after four batches of 100 were handed out
+        int failAt = csv.indexOf("q450,");
+        Reader failing = new FilterReader(new StringReader(csv.toString())) {
+            private int position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (position >= failAt) throw new IOException("disk");
+                int read = super.read(buffer, offset, Math.min(length, failAt - position));
+                if (read > 0) position += read;
+                return read;
+            }
+        };
+        ExecutorService server = Executors.newFixedThreadPool(4);
+        BulkImporter importer = new BulkImporter((firstIndex, cards, done) -> server.execute(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.onComplete(null);
+        }), 100, 4);
+
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        importer.run(new CardImportParser(failing, CardImportParser.Format.CSV), 0, new BulkImporter.Listener() {
+            @Override
+            public void onProgress(long committed, double cardsPerSecond) {
+                events.add("progress " + committed);
+            }
+
+            @Override
+            public void onFinished(long committed, int skippedRows) {
+                events.add("finished " + committed);
+            }
+
+            @Override
+            public void onFailed(long committed, Exception error) {
+                events.add("failed " + committed);
+            }
+        });
+        server.shutdown();
+
+        // Every batch handed out has landed, and nothing is reported after the failure
+        assertEquals("failed 400", events.get(events.size() - 1));
+        assertTrue(events.contains("progress 400"));
+    }
+
+    private static CardImportParser parser(int cards) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < cards; i++) {
+            csv.append('q').append(i).append(",a").append(i).append('\n');
+        }
+        return new CardImportParser(new StringReader(csv.toString()), CardImportParser.Format.CSV);
+    }
+
+    private static class RecordingListener implements BulkImporter.Listener {
+        long finished = -1;
+        long failedAt = -1;
+
+        @Override
+        public void onProgress(long committed, double cardsPerSecond) {}
+
+        @Override
+        public void onFinished(long committed, int skippedRows) {
+            finished = committed;
+        }
+
+        @Override
+        public void onFailed(long committed, Exception error) {
+            failedAt = committed;
+        }
+    }
+}
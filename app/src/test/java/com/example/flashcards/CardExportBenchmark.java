@@ -0,0 +1,105 @@
+package com.example.flashcards;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures {@link CardExporter} writing through {@link CardExportWriter} into
+ * a channel that discards its bytes. Prints cards per second and bytes
+ * allocated per card by the exporting thread; run with
+ * {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*CardExportBenchmark" -i}.
+ */
+public class CardExportBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    @BeforeClass
+    public static void onlyWhenAsked() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void hundredThousandCards() throws IOException {
+        List<Flashcard> deck = SyntheticDeck.generate(100_000, 42);
+        // Pages are views of the prebuilt deck so only the export itself is measured
+        CardExporter.PageSource source = (afterId, limit) -> {
+            int from = afterId == null ? 0 : Integer.parseInt(afterId.substring("card-".length())) + 1;
+            return deck.subList(Math.min(from, deck.size()), Math.min(from + limit, deck.size()));
+        };
+
+        // Warm up
+        export(source);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        CountingChannel channel = export(source);
+        assertEquals(deck.size(), channel.exported);
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("CardExportBenchmark %d cards: %.0f cards/s, %.1f bytes allocated/card,"
+                        + " %d KB compressed%n", deck.size(), deck.size() / (elapsedNanos / 1e9),
+                allocated < 0 ? Double.NaN : (double) allocated / deck.size(), channel.written / 1024);
+    }
+
+    private static CountingChannel export(CardExporter.PageSource source) throws IOException {
+        CountingChannel channel = new CountingChannel();
+        try (CardExportWriter writer = new CardExportWriter(channel)) {
+            new CardExporter(source, PAGE_SIZE).run(writer, new CardExporter.Listener() {
+                @Override
+                public void onProgress(long exported, double cardsPerSecond) {
+                }
+
+                @Override
+                public void onFinished(long exported, long uncompressedBytes) {
+                    channel.exported = exported;
+                }
+
+                @Override
+                public void onFailed(long exported, Exception error) {
+                    fail(error.toString());
+                }
+            });
+        }
+        return channel;
+    }
+
+    // -1 when the JVM cannot count per-thread allocations
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        long written;
+        long exported;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int count = src.remaining();
+            src.position(src.limit());
+            written += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class CardExporterTest {
+
+    @Test
+    public void writer_escapesJsonAndEncodesUtf8() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CardExportWriter writer = new CardExportWriter(Channels.newChannel(bytes))) {
+            writer.write("a", "Say \"hi\"\\bye", "line1\nline2\ttab\u0001", null, null);
+            writer.write("b", "Gr\u00f6\u00dfe \u20ac", "\ud83d\ude00", null, Collections.emptyList());
+            writer.write("c", null, "x", null, null);
+        }
+
+        List<String> lines = readLines(bytes.toByteArray());
+        assertEquals(3, lines.size());
+        assertEquals("{\"id\":\"a\",\"question\":\"Say \\\"hi\\\"\\\\bye\","
+                + "\"answer\":\"line1\\nline2\\ttab\\u0001\",\"category\":null,\"tags\":[]}", lines.get(0));
+        assertEquals("{\"id\":\"b\",\"question\":\"Gr\u00f6\u00dfe \u20ac\",\"answer\":\"\ud83d\ude00\","
+                + "\"category\":null,\"tags\":[]}", lines.get(1));
+        assertEquals("{\"id\":\"c\",\"question\":null,\"answer\":\"x\",\"category\":null,\"tags\":[]}",
+                lines.get(2));
+    }
+
+    @Test
+    public void writer_includesCategoryAndTags() throws IOException {
+        Flashcard card = new Flashcard("a", "Q", "A");
+        card.setCategory("Biology");
+        card.setTags(Arrays.asList("cells", "exam \"1\""));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CardExportWriter writer = new CardExportWriter(Channels.newChannel(bytes))) {
+            writer.write(card);
+        }
+
+        assertEquals(Collections.singletonList("{\"id\":\"a\",\"question\":\"Q\",\"answer\":\"A\","
+                + "\"category\":\"Biology\",\"tags\":[\"cells\",\"exam \\\"1\\\"\"]}"),
+                readLines(bytes.toByteArray()));
+    }
+
+    @Test
+    public void exporter_pagesWithCursorAndWritesEveryCard() throws IOException {
+        List<Flashcard> deck = SyntheticDeck.generate(1234, 7);
+        List<String> cursors = new ArrayList<>();
+        CardExporter exporter = new CardExporter((afterId, limit) -> {
+            cursors.add(afterId);
+            return page(deck, afterId, limit);
+        }, 500);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long[] finished = {-1};
+        try (CardExportWriter writer = new CardExportWriter(Channels.newChannel(bytes))) {
+            exporter.run(writer, new CardExporter.Listener() {
+                @Override
+                public void onProgress(long exported, double cardsPerSecond) {
+                }
+
+                @Override
+                public void onFinished(long exported, long uncompressedBytes) {
+                    finished[0] = exported;
+                }
+
+                @Override
+                public void onFailed(long exported, Exception error) {
+                    fail(error.toString());
+                }
+            });
+        }
+
+        assertEquals(1234, finished[0]);
+        // The short third page ends the export without a fourth query
+        assertEquals(3, cursors.size());
+        assertNull(cursors.get(0));
+        assertEquals(SyntheticDeck.id(499), cursors.get(1));
+        assertEquals(SyntheticDeck.id(999), cursors.get(2));
+
+        List<String> lines = readLines(bytes.toByteArray());
+        assertEquals(1234, lines.size());
+        assertTrue(lines.get(1233).startsWith("{\"id\":\"" + SyntheticDeck.id(1233) + "\""));
+    }
+
+    @Test
+    public void exporter_reportsFailureWithCardsWritten() throws IOException {
+        List<Flashcard> deck = SyntheticDeck.generate(300, 7);
+        CardExporter exporter = new CardExporter((afterId, limit) -> {
+            if (afterId != null) throw new Exception("offline");
+            return page(deck, null, limit);
+        }, 100);
+
+        long[] failedAt = {-1};
+        try (CardExportWriter writer = new CardExportWriter(Channels.newChannel(new ByteArrayOutputStream()))) {
+            exporter.run(writer, new CardExporter.Listener() {
+                @Override
+                public void onProgress(long exported, double cardsPerSecond) {
+                }
+
+                @Override
+                public void onFinished(long exported, long uncompressedBytes) {
+                    fail("should not finish");
+                }
+
+                @Override
+                public void onFailed(long exported, Exception error) {
+                    failedAt[0] = exported;
+                }
+            });
+        }
+        assertEquals(100, failedAt[0]);
+    }
+
+    // What the Firestore query returns: ids after the cursor, in id order
+    static List<Flashcard> page(List<Flashcard> deck, String afterId, int limit) {
+        List<Flashcard> page = new ArrayList<>(limit);
+        for (Flashcard card : deck) {
+            if (afterId != null && card.getId().compareTo(afterId) <= 0) continue;
+            page.add(card);
+            if (page.size() == limit) break;
+        }
+        return page;
+    }
+
+    private static List<String> readLines(byte[] gzipped) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(gzipped)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CardImportParserTest {
+
+    @Test
+    public void csv_handlesQuotesHeaderAndMultilineFields() throws IOException {
+        String csv = "question,answer\r\n"
+                + "Capital of France?,Paris\r\n"
+                + "\"Say \"\"hi\"\", then a comma, ok?\",\"line one\nline two\"\n"
+                + "only a question\n"
+                + "\n"
+                + "Largest planet?,Jupiter,extra column";
+
+        CardImportParser parser = new CardImportParser(new StringReader(csv), CardImportParser.Format.CSV);
+        List<Flashcard> cards = readAll(parser);
+
+        assertEquals(3, cards.size());
+        assertEquals("Capital of France?", cards.get(0).getQuestion());
+        assertEquals("Say \"hi\", then a comma, ok?", cards.get(1).getQuestion());
+        assertEquals("line one\nline two", cards.get(1).getAnswer());
+        assertEquals("Jupiter", cards.get(2).getAnswer());
+        assertEquals(1, parser.getSkippedRows());
+    }
+
+    @Test
+    public void ankiExport_skipsHeaderLinesAndHonoursSeparator() throws IOException {
+        String anki = "#separator:tab\n"
+                + "#html:false\n"
+                + "Front one\tBack one\ttag1 tag2\n"
+                + "Front two\tBack two\n";
+
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader(anki),
+                CardImportParser.Format.fromFileName("deck.txt")));
+
+        assertEquals(2, cards.size());
+        assertEquals("Front one", cards.get(0).getQuestion());
+        assertEquals("Back two", cards.get(1).getAnswer());
+        // Without a "#tags column:" header the third column is not known to be tags
+        assertEquals(Collections.emptyList(), cards.get(0).getTags());
+    }
+
+    @Test
+    public void separatorDirective_overridesFileExtension() throws IOException {
+        String text = "#separator:comma\nq1,a1\n";
+
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader(text), CardImportParser.Format.TSV));
+
+        assertEquals(1, cards.size());
+        assertEquals("a1", cards.get(0).getAnswer());
+    }
+
+    @Test
+    public void headerRow_namesCategoryAndTagsColumns() throws IOException {
+        String csv = "Question,Answer,Notes,Category,Tags\n"
+                + "Q1,A1,ignored,Biology,cells  exam\n"
+                + "Q2,A2,,,\n"
+                + "Q3,A3\n";
+
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader(csv), CardImportParser.Format.CSV));
+
+        assertEquals(3, cards.size());
+        assertEquals("Biology", cards.get(0).getCategory());
+        assertEquals(Arrays.asList("cells", "exam"), cards.get(0).getTags());
+        assertNull(cards.get(1).getCategory());
+        assertEquals(Collections.emptyList(), cards.get(1).getTags());
+        assertNull(cards.get(2).getCategory());
+    }
+
+    @Test
+    public void ankiTagsColumnHeader_readsTags() throws IOException {
+        String anki = "#separator:tab\n"
+                + "#tags column:3\n"
+                + "Front one\tBack one\ttag1 tag2\n";
+
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader(anki), CardImportParser.Format.TSV));
+
+        assertEquals(Arrays.asList("tag1", "tag2"), cards.get(0).getTags());
+        assertNull(cards.get(0).getCategory());
+    }
+
+    @Test
+    public void longHeaderLineAndByteOrderMark_areSkipped() throws IOException {
+        StringBuilder longHeader = new StringBuilder("#notetype column:");
+        for (int i = 0; i < 2000; i++) {
+            longHeader.append('x');
+        }
+        String text = "\uFEFF#separator:tab\n" + longHeader + "\nq1\ta1\n";
+
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader(text), CardImportParser.Format.CSV));
+
+        assertEquals(1, cards.size());
+        assertEquals("q1", cards.get(0).getQuestion());
+    }
+
+    @Test
+    public void byteOrderMark_isNotPartOfTheFirstQuestion() throws IOException {
+        List<Flashcard> cards = readAll(new CardImportParser(new StringReader("\uFEFFq1,a1\n"),
+                CardImportParser.Format.CSV));
+
+        assertEquals("q1", cards.get(0).getQuestion());
+    }
+
+    @Test
+    public void fromDocument_usesDisplayNameThenMimeType() {
+        assertEquals(CardImportParser.Format.CSV, CardImportParser.Format.fromDocument("deck.csv", null));
+        assertEquals(CardImportParser.Format.TSV, CardImportParser.Format.fromDocument("deck.txt", "text/csv"));
+        assertEquals(CardImportParser.Format.CSV, CardImportParser.Format.fromDocument(null, "text/csv"));
+        assertEquals(CardImportParser.Format.CSV, CardImportParser.Format.fromDocument("msf:1234", "text/csv"));
+        assertEquals(CardImportParser.Format.TSV, CardImportParser.Format.fromDocument(null, "text/plain"));
+    }
+
+    private static List<Flashcard> readAll(CardImportParser parser) throws IOException {
+        List<Flashcard> cards = new ArrayList<>();
+        Flashcard card;
+        while ((card = parser.next()) != null) {
+            cards.add(card);
+        }
+        return cards;
+    }
+}
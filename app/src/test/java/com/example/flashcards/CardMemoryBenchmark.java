@@ -0,0 +1,91 @@
+package com.example.flashcards;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Heap retained per card by a 100k card deck, first as the feed holds its
+ * cards, then together with the deck's {@link SearchIndex}. Cards get fresh
+ * label strings, as decoding gives them, so whatever the Flashcard setters
+ * share is counted as shared. Only the app's own classes are measured, so
+ * running this on two commits compares their layouts. Prints bytes per card;
+ * run with {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*CardMemoryBenchmark" -i}.
+ */
+public class CardMemoryBenchmark {
+
+    private static final int CARDS = 100_000;
+    private static final String[] CATEGORIES = {"Biology", "History", "Maths", "Languages", "Physics", "Geography"};
+    private static final String[] TAGS = {"exam", "chapter-1", "chapter-2", "chapter-3", "hard", "review"};
+
+    @BeforeClass
+    public static void onlyWhenAsked() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void hundredThousandCards() {
+        // Each is built twice so class loading and pool warm-up are not counted
+        retained(CardMemoryBenchmark::labelled);
+        long cards = retained(CardMemoryBenchmark::labelled);
+        retained(CardMemoryBenchmark::indexed);
+        long indexed = retained(CardMemoryBenchmark::indexed);
+
+        System.out.printf("CardMemoryBenchmark cards: %d bytes per card%n", cards / CARDS);
+        System.out.printf("CardMemoryBenchmark cards with search index: %d bytes per card%n", indexed / CARDS);
+        System.out.printf("CardMemoryBenchmark search index alone: %d bytes per card%n", (indexed - cards) / CARDS);
+        assertTrue(indexed > cards);
+    }
+
+    private interface Model {
+        Object build();
+    }
+
+    private static Object indexed() {
+        List<Flashcard> cards = labelled();
+        SearchIndex index = new SearchIndex();
+        for (Flashcard card : cards) {
+            index.add(card);
+        }
+        return new Object[]{cards, index};
+    }
+
+    // Cards as decoded: fresh label strings on every card
+    private static List<Flashcard> labelled() {
+        List<Flashcard> cards = SyntheticDeck.generate(CARDS, 42);
+        Random random = new Random(42);
+        for (Flashcard card : cards) {
+            card.setCategory(new String(CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            card.setTags(Arrays.asList(new String(TAGS[random.nextInt(TAGS.length)]),
+                    new String(TAGS[random.nextInt(TAGS.length)])));
+        }
+        return cards;
+    }
+
+    // Bytes still reachable from what the model builds
+    private static long retained(Model model) {
+        long baseline = usedHeap();
+        Object built = model.build();
+        long used = usedHeap() - baseline;
+        assertNotNull(built);
+        return used;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CardTextTest {
+
+    @Test
+    public void contains_matchesQuestionOrAnswerButNotAcrossThem() {
+        CardText text = new CardText();
+        int ordinal = text.add("Capital of FRANCE?", "Paris");
+
+        assertTrue(text.contains(ordinal, CardText.encode("france")));
+        assertTrue(text.contains(ordinal, CardText.encode("paris")));
+        assertFalse(text.contains(ordinal, CardText.encode("?paris")));
+        assertFalse(text.contains(ordinal, CardText.encode("berlin")));
+    }
+
+    @Test
+    public void contains_matchesNonAsciiText() {
+        CardText text = new CardText();
+        int ordinal = text.add("\u00c9T\u00c9", "\u6771\u4eac");
+
+        assertTrue(text.contains(ordinal, CardText.encode("\u00e9t\u00e9")));
+        assertTrue(text.contains(ordinal, CardText.encode("\u4eac")));
+        assertFalse(text.contains(ordinal, CardText.encode("\u4eac\u6771")));
+    }
+
+    @Test
+    public void compact_dropsRemovedCardsAndRenumbersTheRest() {
+        CardText text = new CardText();
+        for (int i = 0; i < 10; i++) {
+            text.add("question " + i, "answer " + i);
+        }
+        for (int i = 0; i < 10; i += 2) {
+            text.remove(i);
+        }
+        assertTrue(text.isRemoved(4));
+        assertFalse(text.contains(4, CardText.encode("question 4")));
+
+        int[] remap = text.compact();
+
+        assertEquals(5, text.size());
+        assertEquals(-1, remap[4]);
+        assertEquals(2, remap[5]);
+        assertTrue(text.contains(2, CardText.encode("question 5")));
+        assertTrue(text.contains(2, CardText.encode("answer 5")));
+        assertEquals(text.end(4), text.length());
+    }
+
+    @Test
+    public void add_growsPastTheInitialBuffer() {
+        CardText text = new CardText();
+        StringBuilder longAnswer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longAnswer.append("word ");
+        }
+        for (int i = 0; i < 100; i++) {
+            text.add("q" + i, longAnswer + "end" + i);
+        }
+
+        assertTrue(text.contains(99, CardText.encode("end99")));
+        assertTrue(text.contains(0, CardText.encode("q0")));
+    }
+}
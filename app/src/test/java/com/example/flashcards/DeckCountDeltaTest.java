@@ -0,0 +1,52 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DeckCountDeltaTest {
+
+    @Test
+    public void createsAndDeletesMoveCardAndCategoryCounts() {
+        DeckCountDelta delta = new DeckCountDelta();
+        delta.add(false, null, true, "Biology");
+        delta.add(false, null, true, null);
+        delta.add(true, "History", false, null);
+
+        assertEquals(1, delta.getCards());
+        assertEquals(Long.valueOf(1), delta.getCategories().get("Biology"));
+        assertEquals(Long.valueOf(-1), delta.getCategories().get("History"));
+    }
+
+    @Test
+    public void editThatChangesCategory_movesOneCard() {
+        DeckCountDelta delta = new DeckCountDelta();
+        delta.add(true, "Biology", true, "Chemistry");
+
+        assertEquals(0, delta.getCards());
+        assertEquals(Long.valueOf(-1), delta.getCategories().get("Biology"));
+        assertEquals(Long.valueOf(1), delta.getCategories().get("Chemistry"));
+    }
+
+    @Test
+    public void unchangedCategoryAndMissingCards_changeNothing() {
+        DeckCountDelta delta = new DeckCountDelta();
+        delta.add(true, "Biology", true, "Biology");
+        delta.add(false, null, false, null); // Deleting a card that is already gone
+        delta.add(false, null, false, "Biology");
+
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void movesThatCancelOut_areLeftOut() {
+        DeckCountDelta delta = new DeckCountDelta();
+        delta.add(true, "Biology", true, "Chemistry");
+        delta.add(true, "Chemistry", true, "Biology");
+
+        assertEquals(Collections.emptyMap(), delta.getCategories());
+        assertTrue(delta.isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.flashcards;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeckFeedTest {
+
+    // Stands in for the Firestore listeners FlashcardRepository attaches
+    private int connects;
+    private int activeConnections;
+    private int maxActiveConnections;
+    private DeckFeed feed;
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        feed = new DeckFeed("user", f -> {
+            connects++;
+            activeConnections++;
+            maxActiveConnections = Math.max(maxActiveConnections, activeConnections);
+            return () -> activeConnections--;
+        });
+    }
+
+    @Test
+    public void resumePauseCycles_keepOneConnection() {
+        DeckFeed.Subscription subscription = feed.observe(recorder("list"));
+        for (int i = 0; i < 50; i++) {
+            feed.start();
+            assertEquals(1, activeConnections);
+            feed.stop();
+            assertEquals(0, activeConnections);
+        }
+        subscription.remove();
+
+        assertEquals(50, connects);
+        assertEquals(1, maxActiveConnections);
+    }
+
+    @Test
+    public void overlappingScreens_shareOneConnection() {
+        // The list resumes, a second screen on the same deck starts before the
+        // list has paused, then both go away in the other order
+        feed.start();
+        feed.start();
+        feed.stop();
+        assertTrue(feed.isConnected());
+        feed.start();
+        feed.stop();
+        feed.stop();
+
+        assertEquals(1, connects);
+        assertEquals(1, maxActiveConnections);
+        assertEquals(0, activeConnections);
+        assertFalse(feed.isConnected());
+    }
+
+    @Test
+    public void unmatchedStop_isIgnored() {
+        feed.stop();
+        feed.start();
+
+        assertEquals(1, activeConnections);
+    }
+
+    @Test
+    public void newObserver_getsCardsAlreadyLoaded() {
+        feed.apply(Arrays.asList(card("b", "Q2"), card("a", "Q1")), Collections.emptyList());
+        feed.setSummary(new Deck("default", "My Flashcards"));
+
+        feed.observe(recorder("list"));
+
+        assertEquals(Arrays.asList("list changed [a, b] removed []", "list summary My Flashcards"), events);
+    }
+
+    @Test
+    public void unchangedCards_areNotPassedOn() {
+        feed.apply(Collections.singletonList(card("a", "Q1")), Collections.emptyList());
+        feed.observe(recorder("list"));
+        events.clear();
+
+        List<Flashcard> changed = feed.apply(Arrays.asList(card("a", "Q1"), card("b", "Q2")),
+                Collections.singletonList("missing"));
+
+        assertEquals(1, changed.size());
+        assertEquals(Collections.singletonList("list changed [b] removed []"), events);
+    }
+
+    @Test
+    public void firstDelivery_isPassedOnEvenWhenEmpty() {
+        feed.observe(recorder("list"));
+
+        feed.apply(Collections.emptyList(), Collections.emptyList());
+        feed.apply(Collections.emptyList(), Collections.emptyList());
+
+        assertTrue(feed.isLoaded());
+        assertEquals(Collections.singletonList("list changed [] removed []"), events);
+    }
+
+    @Test
+    public void cachedCards_neverReplaceServerCards() {
+        feed.apply(Collections.singletonList(card("a", "From server")), Collections.emptyList());
+
+        feed.applyCached(Arrays.asList(card("a", "Stale"), card("b", "Cached")));
+
+        assertEquals("From server", feed.get("a").getQuestion());
+        assertEquals("Cached", feed.get("b").getQuestion());
+    }
+
+    @Test
+    public void removedObserver_hearsNothingMore() {
+        DeckFeed.Subscription subscription = feed.observe(recorder("list"));
+        feed.observe(recorder("study"));
+        subscription.remove();
+
+        feed.applyLocal(Collections.singletonList(card("a", "Q1")), Collections.emptyList());
+
+        assertEquals(Collections.singletonList("study changed [a] removed []"), events);
+        assertTrue(feed.hasObservers());
+    }
+
+    private DeckFeed.Observer recorder(String name) {
+        return new DeckFeed.Observer() {
+            @Override
+            public void onCardsChanged(List<Flashcard> changed, List<String> removedIds) {
+                List<String> ids = new ArrayList<>();
+                for (Flashcard flashcard : changed) {
+                    ids.add(flashcard.getId());
+                }
+                events.add(name + " changed " + ids + " removed " + removedIds);
+            }
+
+            @Override
+            public void onSummaryChanged(Deck summary) {
+                events.add(name + " summary " + summary.getName());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                events.add(name + " error");
+            }
+        };
+    }
+
+    private static Flashcard card(String id, String question) {
+        return new Flashcard(id, question, "Answer");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.flashcards;
+
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Decodes 10k card documents with the reflection mapper behind
+ * {@code DocumentSnapshot.toObject} and with {@link FlashcardCodec}, and
+ * times the same snapshot delivered again to cards already held, which the
+ * codec skips by updatedAt. Documents are field maps, the form both start
+ * from. Prints milliseconds and bytes allocated per 10k documents; run with
+ * {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*FlashcardCodecBenchmark" -i}.
+ */
+public class FlashcardCodecBenchmark {
+
+    private static final int DOCUMENTS = 10_000;
+    private static final int ROUNDS = 20;
+
+    @BeforeClass
+    public static void onlyWhenAsked() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void tenThousandDocuments() {
+        List<Flashcard> deck = SyntheticDeck.generate(DOCUMENTS, 42);
+        List<Map<String, Object>> docs = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            docs.add(document(deck.get(i), i));
+        }
+
+        // Cards as decoded last time, for the redelivery case
+        Map<String, Flashcard> held = new HashMap<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Flashcard flashcard = FlashcardCodec.decode(deck.get(i).getId(), docs.get(i)::get);
+            held.put(flashcard.getId(), flashcard);
+        }
+
+        Runnable reflection = () -> {
+            for (int i = 0; i < DOCUMENTS; i++) {
+                Flashcard flashcard = CustomClassMapper.convertToCustomClass(docs.get(i), Flashcard.class, null);
+                flashcard.setId(deck.get(i).getId());
+            }
+        };
+        Runnable codec = () -> {
+            for (int i = 0; i < DOCUMENTS; i++) {
+                FlashcardCodec.decode(deck.get(i).getId(), docs.get(i)::get);
+            }
+        };
+        Runnable redelivered = () -> {
+            for (int i = 0; i < DOCUMENTS; i++) {
+                String id = deck.get(i).getId();
+                Map<String, Object> doc = docs.get(i);
+                Object updatedAt = doc.get("updatedAt");
+                if (!FlashcardCodec.isUnchanged(held.get(id), ((Number) updatedAt).longValue())) {
+                    FlashcardCodec.decode(id, doc::get);
+                }
+            }
+        };
+
+        // Both decoders have to agree before their speed means anything
+        Flashcard byReflection = CustomClassMapper.convertToCustomClass(docs.get(7), Flashcard.class, null);
+        byReflection.setId(deck.get(7).getId());
+        Flashcard byCodec = FlashcardCodec.decode(deck.get(7).getId(), docs.get(7)::get);
+        assertTrue(byReflection.hasSameContent(byCodec));
+        assertEquals(byReflection.getUpdatedAt(), byCodec.getUpdatedAt());
+
+        double[] reflectionResult = measure(reflection);
+        double[] codecResult = measure(codec);
+        double[] redeliveredResult = measure(redelivered);
+        report("reflection (toObject)", reflectionResult);
+        report("FlashcardCodec", codecResult);
+        report("redelivered, skipped by updatedAt", redeliveredResult);
+        System.out.printf("FlashcardCodecBenchmark codec is %.1fx faster than reflection%n",
+                reflectionResult[0] / codecResult[0]);
+    }
+
+    private static Map<String, Object> document(Flashcard flashcard, int i) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("question", flashcard.getQuestion());
+        doc.put("answer", flashcard.getAnswer());
+        doc.put("category", "category-" + i % 12);
+        doc.put("tags", Arrays.asList("tag-" + i % 7, "tag-" + i % 11));
+        doc.put("updatedAt", 1_700_000_000_000L + i);
+        return doc;
+    }
+
+    // Best milliseconds per 10k documents after warming up, and bytes allocated per 10k
+    private static double[] measure(Runnable decode) {
+        for (int i = 0; i < ROUNDS; i++) {
+            decode.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            decode.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long allocatedBefore = allocatedBytes();
+        decode.run();
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new double[]{best / 1e6 * 10_000 / DOCUMENTS, allocatedBefore < 0 ? Double.NaN : allocated * 10_000.0 / DOCUMENTS};
+    }
+
+    private static void report(String name, double[] result) {
+        System.out.printf("FlashcardCodecBenchmark %s: %.2f ms and %.0f KB allocated per 10k documents%n",
+                name, result[0], result[1] / 1024);
+    }
+
+    // -1 when the JVM cannot count per-thread allocations
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FlashcardCodecTest {
+
+    @Test
+    public void decode_readsEveryField() {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("question", "Capital of France?");
+        doc.put("answer", "Paris");
+        doc.put("category", "Geography");
+        doc.put("tags", Arrays.asList("europe", "capitals"));
+        doc.put("updatedAt", 1_700_000_000_000L);
+        doc.put("userId", "ignored");
+
+        Flashcard flashcard = FlashcardCodec.decode("card-1", doc::get);
+
+        assertEquals("card-1", flashcard.getId());
+        assertEquals("Capital of France?", flashcard.getQuestion());
+        assertEquals("Paris", flashcard.getAnswer());
+        assertEquals("Geography", flashcard.getCategory());
+        assertEquals(Arrays.asList("europe", "capitals"), flashcard.getTags());
+        assertEquals(1_700_000_000_000L, flashcard.getUpdatedAt());
+    }
+
+    @Test
+    public void decode_leavesDefaultsForMissingOrMistypedFields() {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("question", "Imported before categories");
+        doc.put("answer", 42L);
+        doc.put("tags", Arrays.asList("ok", 7L, null));
+        doc.put("updatedAt", "yesterday");
+
+        Flashcard flashcard = FlashcardCodec.decode("card-2", doc::get);
+
+        assertEquals("Imported before categories", flashcard.getQuestion());
+        assertNull(flashcard.getAnswer());
+        assertNull(flashcard.getCategory());
+        assertEquals(Collections.singletonList("ok"), flashcard.getTags());
+        assertEquals(0, flashcard.getUpdatedAt());
+        assertEquals(Collections.emptyList(), FlashcardCodec.decode("card-3", field -> null).getTags());
+    }
+
+    @Test
+    public void decodedCard_matchesTheOneTheFeedHolds() {
+        Flashcard held = new Flashcard("card-1", "Q", "A");
+        held.setTags(Collections.singletonList("t"));
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("question", "Q");
+        doc.put("answer", "A");
+        doc.put("tags", Collections.singletonList("t"));
+
+        assertTrue(held.hasSameContent(FlashcardCodec.decode("card-1", doc::get)));
+    }
+
+    @Test
+    public void isUnchanged_comparesUpdatedAt() {
+        Flashcard held = new Flashcard("card-1", "Q", "A");
+        held.setUpdatedAt(100);
+
+        assertTrue(FlashcardCodec.isUnchanged(held, 100));
+        assertFalse(FlashcardCodec.isUnchanged(held, 101));
+        assertFalse(FlashcardCodec.isUnchanged(null, 100));
+        // Without a timestamp there is no telling, so the card is decoded
+        held.setUpdatedAt(0);
+        assertFalse(FlashcardCodec.isUnchanged(held, 0));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.flashcards;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlashcardStoreTest {
+
+    private static final int DECK_SIZE = 10_000;
+
+    private int comparisons;
+    private FlashcardStore store;
+
+    @Before
+    public void setUp() {
+        Comparator<Flashcard> countingOrder = (a, b) -> {
+            comparisons++;
+            return FlashcardStore.BY_ID.compare(a, b);
+        };
+        store = new FlashcardStore(countingOrder);
+        for (int i = 0; i < DECK_SIZE; i++) {
+            store.upsert(card(i, "Question " + i, "Answer " + i));
+        }
+        comparisons = 0;
+    }
+
+    @Test
+    public void singleEdit_replacesOneCardWithLogarithmicWork() {
+        List<Flashcard> before = new ArrayList<>(store.getAll());
+
+        assertTrue(store.upsert(card(4242, "Edited", "Answer 4242")));
+
+        assertEquals("Edited", store.get(4242).getQuestion());
+        assertEquals(DECK_SIZE, store.size());
+        // Two binary searches over the deck, nowhere near a full pass
+        assertTrue("comparisons: " + comparisons, comparisons <= 4 * log2(DECK_SIZE));
+        for (int i = 0; i < DECK_SIZE; i++) {
+            if (i == 4242) {
+                assertNotSame(before.get(i), store.get(i));
+            } else {
+                assertSame(before.get(i), store.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void unchangedContent_keepsExistingInstance() {
+        Flashcard original = store.get(7);
+
+        assertFalse(store.upsert(card(7, "Question 7", "Answer 7")));
+
+        assertSame(original, store.get(7));
+    }
+
+    @Test
+    public void unchangedContent_takesNewerUpdatedAt() {
+        Flashcard original = store.get(7);
+        Flashcard resaved = card(7, "Question 7", "Answer 7");
+        resaved.setUpdatedAt(original.getUpdatedAt() + 1000);
+
+        assertFalse(store.upsert(resaved));
+
+        assertSame(original, store.get(7));
+        assertEquals(resaved.getUpdatedAt(), store.get(7).getUpdatedAt());
+    }
+
+    @Test
+    public void insertAndRemove_keepSortedPositions() {
+        assertTrue(store.upsert(new Flashcard("card-00005a", "New", "Card")));
+        assertEquals(6, store.indexOf("card-00005a"));
+        assertTrue(store.remove(id(0)));
+
+        assertEquals(DECK_SIZE, store.size());
+        assertEquals(-1, store.indexOf(id(0)));
+        assertEquals(5, store.indexOf("card-00005a"));
+        assertTrue(comparisons <= 4 * log2(DECK_SIZE));
+    }
+
+    @Test
+    public void sortKeyChange_movesCardToItsNewPosition() {
+        Comparator<Flashcard> byQuestion = Comparator.comparing(Flashcard::getQuestion)
+                .thenComparing(FlashcardStore.BY_ID);
+        FlashcardStore sorted = new FlashcardStore(byQuestion);
+        sorted.upsert(new Flashcard("a", "apple", "1"));
+        sorted.upsert(new Flashcard("b", "banana", "2"));
+        sorted.upsert(new Flashcard("c", "cherry", "3"));
+
+        assertTrue(sorted.upsert(new Flashcard("a", "zucchini", "1")));
+
+        assertEquals("b", sorted.get(0).getId());
+        assertEquals("c", sorted.get(1).getId());
+        assertEquals("a", sorted.get(2).getId());
+        assertEquals(2, sorted.indexOf("a"));
+    }
+
+    @Test
+    public void removingUnknownId_isNoOp() {
+        assertFalse(store.remove("missing"));
+        assertEquals(DECK_SIZE, store.size());
+    }
+
+    private static Flashcard card(int i, String question, String answer) {
+        return new Flashcard(id(i), question, answer);
+    }
+
+    private static String id(int i) {
+        return String.format("card-%05d", i);
+    }
+
+    private static int log2(int n) {
+        return 32 - Integer.numberOfLeadingZeros(n);
+    }
+}
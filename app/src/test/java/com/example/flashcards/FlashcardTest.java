@@ -0,0 +1,32 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FlashcardTest {
+
+    @Test
+    public void changedFields_reportsEachRenderedField() {
+        Flashcard card = new Flashcard("a", "Q", "A");
+        assertEquals(0, card.changedFields(new Flashcard("a", "Q", "A")));
+        assertEquals(Flashcard.QUESTION_CHANGED, card.changedFields(new Flashcard("a", "Q2", "A")));
+        assertEquals(Flashcard.ANSWER_CHANGED, card.changedFields(new Flashcard("a", "Q", null)));
+        assertEquals(Flashcard.QUESTION_CHANGED | Flashcard.ANSWER_CHANGED,
+                card.changedFields(new Flashcard("a", null, "A2")));
+    }
+
+    @Test
+    public void changedFields_ignoresLabels() {
+        Flashcard card = new Flashcard("a", "Q", "A");
+        Flashcard labelled = new Flashcard("a", "Q", "A");
+        labelled.setCategory("Biology");
+        labelled.setTags(Arrays.asList("cells"));
+
+        // Rows do not show labels, but filters use them, so the content differs
+        assertEquals(0, card.changedFields(labelled));
+        assertFalse(card.hasSameContent(labelled));
+    }
+}
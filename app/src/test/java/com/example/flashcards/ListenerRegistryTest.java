@@ -0,0 +1,95 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListenerRegistryTest {
+
+    private final ListenerRegistry registry = new ListenerRegistry(true);
+
+    @Test
+    public void removedListeners_areNotCountedOrLeaked() {
+        ListenerRegistry.Tracker page = registry.register("cards users/a/flashcards");
+        ListenerRegistry.Tracker summary = registry.register("summary users/a/decks/default");
+        registry.register("cards users/b/flashcards");
+
+        page.remove();
+        page.remove();
+        summary.remove();
+
+        assertEquals(1, registry.activeCount());
+        assertEquals(0, registry.activeCount("cards users/a/"));
+        assertTrue(registry.leaks("summary users/a/").isEmpty());
+        assertEquals(1, registry.leaks("cards users/b/").size());
+    }
+
+    @Test
+    public void leak_pointsAtWhereTheListenerWasAdded() {
+        registry.register("cards users/a/flashcards");
+
+        List<Throwable> leaks = registry.leaks();
+
+        assertEquals(1, leaks.size());
+        assertTrue(leaks.get(0).getMessage().contains("cards users/a/flashcards"));
+        boolean fromHere = false;
+        for (StackTraceElement frame : leaks.get(0).getStackTrace()) {
+            fromHere |= frame.getMethodName().equals("leak_pointsAtWhereTheListenerWasAdded");
+        }
+        assertTrue(fromHere);
+    }
+
+    @Test
+    public void withoutStacks_leaksAreStillReported() {
+        ListenerRegistry quiet = new ListenerRegistry(false);
+        quiet.register("cards users/a/flashcards");
+
+        List<Throwable> leaks = quiet.leaks();
+
+        assertEquals(1, leaks.size());
+        assertTrue(leaks.get(0).getMessage().contains("cards users/a/flashcards"));
+        assertEquals(0, leaks.get(0).getStackTrace().length);
+    }
+
+    @Test
+    public void deserializing_isCountedForTheListenerThatFired() {
+        ListenerRegistry.Tracker page = registry.register("cards");
+        ListenerRegistry.Tracker summary = registry.register("summary");
+
+        page.dispatch(() -> {
+            registry.recordDeserialize(20, 2_000_000);
+            // A listener firing from inside another one's handler keeps its own counts
+            summary.dispatch(() -> registry.recordDeserialize(1, 100_000));
+            registry.recordDeserialize(5, 500_000);
+        });
+        page.dispatch(() -> {});
+        // A one-off get() outside any listener belongs to none of them
+        registry.recordDeserialize(100, 9_000_000);
+
+        List<ListenerRegistry.Stats> stats = registry.getStats();
+        assertEquals("cards", stats.get(0).name);
+        assertEquals(2, stats.get(0).getFires());
+        assertEquals(25, stats.get(0).getDocuments());
+        assertEquals(2_500_000, stats.get(0).getDeserializeNanos());
+        assertEquals(1, stats.get(1).getFires());
+        assertEquals(1, stats.get(1).getDocuments());
+        assertEquals(100_000, stats.get(1).getDeserializeNanos());
+    }
+
+    @Test
+    public void stats_keepCountingAcrossReregistration() {
+        for (int i = 0; i < 5; i++) {
+            ListenerRegistry.Tracker page = registry.register("cards");
+            page.dispatch(() -> {});
+            page.remove();
+        }
+
+        ListenerRegistry.Stats stats = registry.getStats().get(0);
+        assertEquals(0, stats.getActive());
+        assertEquals(5, stats.getRegistered());
+        assertEquals(5, stats.getFires());
+        assertTrue(registry.summary().startsWith("0 listeners attached"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MutationQueueTest {
+
+    private final Map<String, MutationQueue.Mutation> saved = new HashMap<>();
+    private final MutationQueue queue = new MutationQueue(new MutationQueue.Persistence() {
+        @Override
+        public void save(MutationQueue.Mutation mutation) {
+            saved.put(mutation.id, mutation);
+        }
+
+        @Override
+        public void delete(String id) {
+            saved.remove(id);
+        }
+    });
+    private final List<List<MutationQueue.Mutation>> batches = new ArrayList<>();
+    private final List<MutationQueue.Completion> completions = new ArrayList<>();
+    private final MutationQueue.Writer writer = (batch, done) -> {
+        batches.add(batch);
+        completions.add(done);
+    };
+
+    @Test
+    public void repeatedEdits_coalesceIntoOneWrite() {
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(MutationQueue.Mutation.set("a", "Q" + i, "A" + i, i, false));
+        }
+
+        assertTrue(queue.flush(writer, 500));
+        assertEquals(1, batches.get(0).size());
+        assertEquals("Q9", batches.get(0).get(0).question);
+        assertEquals(10, queue.getEnqueuedCount());
+    }
+
+    @Test
+    public void createThenDelete_cancelsOut() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q", "A", 1, true));
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q2", "A2", 2, false));
+        queue.enqueue(MutationQueue.Mutation.delete("a"));
+
+        assertTrue(queue.isEmpty());
+        assertTrue(saved.isEmpty());
+        assertFalse(queue.flush(writer, 500));
+    }
+
+    @Test
+    public void deleteOfServerCard_isKept() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q", "A", 1, false));
+        queue.enqueue(MutationQueue.Mutation.delete("a"));
+
+        queue.flush(writer, 500);
+        assertTrue(batches.get(0).get(0).delete);
+    }
+
+    @Test
+    public void flush_splitsIntoBatchesOneAtATime() {
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue(MutationQueue.Mutation.set("card-" + i, "Q", "A", i, true));
+        }
+
+        assertTrue(queue.flush(writer, 2));
+        assertFalse("a batch is already in flight", queue.flush(writer, 2));
+        completions.get(0).onComplete(null);
+        assertTrue(queue.flush(writer, 2));
+        completions.get(1).onComplete(null);
+        assertTrue(queue.flush(writer, 2));
+        completions.get(2).onComplete(null);
+
+        assertEquals(3, batches.size());
+        assertEquals("card-0", batches.get(0).get(0).id);
+        assertEquals("card-4", batches.get(2).get(0).id);
+        assertTrue(queue.isEmpty());
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    public void editDuringFlight_isWrittenAfterAndKeepsItsRow() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q1", "A1", 1, true));
+        queue.flush(writer, 500);
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q2", "A2", 2, false));
+        assertEquals("Q2", queue.getPending("a").question);
+
+        completions.get(0).onComplete(null);
+        assertEquals("Q2", saved.get("a").question);
+
+        queue.flush(writer, 500);
+        assertEquals("Q2", batches.get(1).get(0).question);
+    }
+
+    @Test
+    public void deleteDuringCreateFlight_stillDeletes() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q1", "A1", 1, true));
+        queue.flush(writer, 500);
+        // The create may land, so the delete must be sent
+        queue.enqueue(MutationQueue.Mutation.delete("a"));
+
+        completions.get(0).onComplete(null);
+        queue.flush(writer, 500);
+        assertTrue(batches.get(1).get(0).delete);
+    }
+
+    @Test
+    public void failedCreate_mergesWithLaterDelete() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q1", "A1", 1, true));
+        queue.flush(writer, 500);
+        queue.enqueue(MutationQueue.Mutation.delete("a"));
+
+        completions.get(0).onComplete(new Exception("offline"));
+        assertTrue(queue.isEmpty());
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    public void failedBatch_isRetried() {
+        queue.enqueue(MutationQueue.Mutation.set("a", "Q1", "A1", 1, true));
+        queue.flush(writer, 500);
+        completions.get(0).onComplete(new Exception("offline"));
+
+        assertTrue(queue.getPending("a").created);
+        assertTrue(queue.flush(writer, 500));
+        assertEquals("Q1", batches.get(1).get(0).question);
+    }
+
+    @Test
+    public void restore_newerEditsWin() {
+        queue.enqueue(MutationQueue.Mutation.delete("a"));
+        queue.restore(Collections.singletonList(MutationQueue.Mutation.set("a", "Q", "A", 1, true)));
+
+        // The restored create and the newer delete cancel out
+        assertTrue(queue.isEmpty());
+        assertFalse(saved.containsKey("a"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OrdinalMapTest {
+
+    @Test
+    public void putGetRemove() {
+        OrdinalMap map = new OrdinalMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("a", 3);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get("a"));
+        assertEquals(3, map.remove("a"));
+        assertEquals(OrdinalMap.MISSING, map.get("a"));
+        assertEquals(OrdinalMap.MISSING, map.remove("a"));
+        assertEquals(2, map.get("b"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removeKeepsCollidingIdsReachable() {
+        // "Aa" and "BB" share a hash code, so they share a probe run
+        OrdinalMap map = new OrdinalMap();
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        map.put("AaAa", 3);
+        map.put("BBBB", 4);
+
+        map.remove("Aa");
+
+        assertEquals(2, map.get("BB"));
+        assertEquals(3, map.get("AaAa"));
+        assertEquals(4, map.get("BBBB"));
+    }
+
+    @Test
+    public void agreesWithHashMapUnderRandomEdits() {
+        OrdinalMap map = new OrdinalMap();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            String id = "card-" + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(id);
+                assertEquals(removed == null ? OrdinalMap.MISSING : removed, map.remove(id));
+            } else {
+                expected.put(id, i);
+                map.put(id, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < 2_000; i++) {
+            Integer value = expected.get("card-" + i);
+            assertEquals(value == null ? OrdinalMap.MISSING : value, map.get("card-" + i));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.flashcards;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times {@link ReviewScheduler} on a 100k-card deck against scanning and
+ * sorting the whole deck. Prints microseconds per operation; run with
+ * {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ReviewSchedulerBenchmark" -i}.
+ */
+public class ReviewSchedulerBenchmark {
+
+    private static final int DECK_SIZE = 100_000;
+    private static final long NOW = 1_700_000_000_000L;
+    private static final int REVIEWS = 10_000;
+    private static final int ITERATIONS = 100;
+
+    @BeforeClass
+    public static void onlyWhenAsked() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void hundredThousandCards() {
+        Random random = new Random(42);
+        List<ReviewState> saved = new ArrayList<>(DECK_SIZE);
+        for (int i = 0; i < DECK_SIZE; i++) {
+            // Due dates spread over the next two months, a few already overdue
+            long due = NOW + (random.nextInt(61) - 1) * ReviewScheduler.DAY_MS + random.nextInt(86_400_000);
+            saved.add(new ReviewState(SyntheticDeck.id(i), 10, 2.5, due, 0, 3, NOW - ReviewScheduler.DAY_MS));
+        }
+
+        long buildStart = System.nanoTime();
+        ReviewScheduler scheduler = new ReviewScheduler();
+        for (ReviewState state : saved) {
+            scheduler.restore(state);
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        long endOfDay = NOW + ReviewScheduler.DAY_MS;
+        List<ReviewState> today = scheduler.dueBefore(endOfDay, Integer.MAX_VALUE);
+        assertEquals(scanAndSort(saved, endOfDay).size(), today.size());
+
+        long heapQueueNs = time(() -> scheduler.dueBefore(endOfDay, Integer.MAX_VALUE));
+        long scanQueueNs = time(() -> scanAndSort(saved, endOfDay));
+
+        // Review a session's worth of cards: take the next one, grade it, repeat
+        long now = endOfDay;
+        long reviewStart = System.nanoTime();
+        for (int i = 0; i < REVIEWS; i++) {
+            ReviewState next = scheduler.next(now);
+            if (next == null) break;
+            scheduler.grade(next.getCardId(), ReviewScheduler.Grade.values()[i % 4], now);
+        }
+        long reviewNs = (System.nanoTime() - reviewStart) / REVIEWS;
+        long scanNextNs = time(() -> scanForNext(saved, endOfDay));
+
+        System.out.println("ReviewSchedulerBenchmark " + DECK_SIZE + " cards, built in " + buildMs + " ms");
+        System.out.printf("  day's queue (%d cards)  heap %8d us  scan+sort %8d us%n",
+                today.size(), heapQueueNs / 1000, scanQueueNs / 1000);
+        System.out.printf("  next card + grade       heap %8.2f us  scan      %8d us%n",
+                reviewNs / 1000.0, scanNextNs / 1000);
+    }
+
+    // What a scheduler without an index would do for the queue
+    private static List<ReviewState> scanAndSort(List<ReviewState> deck, long cutoff) {
+        List<ReviewState> due = new ArrayList<>();
+        for (ReviewState state : deck) {
+            if (state.getDue() <= cutoff) due.add(state);
+        }
+        due.sort((a, b) -> Long.compare(a.getDue(), b.getDue()));
+        return due;
+    }
+
+    private static ReviewState scanForNext(List<ReviewState> deck, long now) {
+        ReviewState next = null;
+        for (ReviewState state : deck) {
+            if (state.getDue() <= now && (next == null || state.getDue() < next.getDue())) next = state;
+        }
+        return next;
+    }
+
+    private static long time(Runnable operation) {
+        // Warm up so the JIT has compiled both paths
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
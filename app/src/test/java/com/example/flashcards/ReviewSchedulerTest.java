@@ -0,0 +1,128 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReviewSchedulerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = ReviewScheduler.DAY_MS;
+
+    @Test
+    public void newCards_areDueImmediately() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.add("a", NOW);
+
+        assertEquals("a", scheduler.next(NOW).getCardId());
+        assertTrue(scheduler.getState("a").isNew());
+    }
+
+    @Test
+    public void goodGrades_growTheInterval() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.add("a", NOW);
+
+        ReviewState state = scheduler.grade("a", ReviewScheduler.Grade.GOOD, NOW);
+        assertEquals(1, state.getIntervalDays(), 0);
+        assertEquals(NOW + DAY, state.getDue());
+        assertNull(scheduler.next(NOW));
+
+        state = scheduler.grade("a", ReviewScheduler.Grade.GOOD, NOW + DAY);
+        assertEquals(6, state.getIntervalDays(), 0);
+        state = scheduler.grade("a", ReviewScheduler.Grade.GOOD, NOW + 7 * DAY);
+        assertEquals(15, state.getIntervalDays(), 0);
+        assertEquals(3, state.getRepetitions());
+    }
+
+    @Test
+    public void again_countsLapseAndLowersEase() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.add("a", NOW);
+        scheduler.grade("a", ReviewScheduler.Grade.GOOD, NOW);
+
+        ReviewState state = scheduler.grade("a", ReviewScheduler.Grade.AGAIN, NOW + DAY);
+        assertEquals(1, state.getLapses());
+        assertEquals(0, state.getRepetitions());
+        assertEquals(2.3, state.getEase(), 1e-9);
+        assertEquals(NOW + DAY + ReviewScheduler.RELEARN_DELAY_MS, state.getDue());
+    }
+
+    @Test
+    public void ease_neverDropsBelowMinimum() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.add("a", NOW);
+        for (int i = 0; i < 20; i++) {
+            scheduler.grade("a", ReviewScheduler.Grade.AGAIN, NOW);
+        }
+        assertEquals(ReviewScheduler.MIN_EASE, scheduler.getState("a").getEase(), 1e-9);
+    }
+
+    @Test
+    public void next_followsDueOrderAfterGrading() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.add("a", NOW);
+        scheduler.add("b", NOW);
+        scheduler.add("c", NOW);
+
+        assertEquals("a", scheduler.next(NOW).getCardId());
+        scheduler.grade("a", ReviewScheduler.Grade.AGAIN, NOW);
+        assertEquals("b", scheduler.next(NOW).getCardId());
+        scheduler.grade("b", ReviewScheduler.Grade.GOOD, NOW);
+        scheduler.grade("c", ReviewScheduler.Grade.GOOD, NOW);
+        assertNull(scheduler.next(NOW));
+        assertEquals("a", scheduler.next(NOW + ReviewScheduler.RELEARN_DELAY_MS).getCardId());
+    }
+
+    @Test
+    public void heapMatchesSortedScan_underRandomOperations() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        Random random = new Random(3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String id = SyntheticDeck.id(i);
+            ids.add(id);
+            scheduler.restore(new ReviewState(id, 1, 2.5, NOW + random.nextInt(30) * DAY, 0, 1, NOW - DAY));
+        }
+        for (int i = 0; i < 5000; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(10) == 0 && scheduler.remove(id)) {
+                ids.remove(id);
+            } else {
+                scheduler.grade(id, ReviewScheduler.Grade.values()[random.nextInt(4)],
+                        NOW + random.nextInt(30) * DAY);
+            }
+        }
+
+        long cutoff = NOW + 20 * DAY;
+        List<ReviewState> expected = new ArrayList<>();
+        for (String id : ids) {
+            ReviewState state = scheduler.getState(id);
+            if (state.getDue() <= cutoff) expected.add(state);
+        }
+        expected.sort((a, b) -> a.getDue() != b.getDue() ? Long.compare(a.getDue(), b.getDue())
+                : a.getCardId().compareTo(b.getCardId()));
+
+        assertEquals(expected, scheduler.dueBefore(cutoff, Integer.MAX_VALUE));
+        assertSame(expected.get(0), scheduler.peek());
+        assertEquals(expected.subList(0, 25), scheduler.peek(25));
+        assertEquals(expected.size(), scheduler.countDue(cutoff));
+        assertEquals(ids.size(), scheduler.size());
+    }
+
+    @Test
+    public void dueBefore_respectsLimit() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        for (int i = 0; i < 10; i++) {
+            scheduler.add(SyntheticDeck.id(i), NOW + i);
+        }
+        List<ReviewState> due = scheduler.dueBefore(NOW + 100, 3);
+        assertEquals(3, due.size());
+        assertEquals(SyntheticDeck.id(0), due.get(0).getCardId());
+        assertEquals(SyntheticDeck.id(2), due.get(2).getCardId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.flashcards;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link SearchIndex} with the linear scan the list used to run on
+ * every keystroke. Prints average microseconds per query; run with
+ * {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*SearchIndexBenchmark" -i}.
+ */
+public class SearchIndexBenchmark {
+
+    private static final String[] QUERIES = {
+            "mitochondria", "photosynthesis river", "prime vector", "capital of", "xyz", "treaty"
+    };
+    private static final int ITERATIONS = 20;
+
+    @BeforeClass
+    public static void onlyWhenAsked() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void tenThousandCards() {
+        run(10_000);
+    }
+
+    @Test
+    public void hundredThousandCards() {
+        run(100_000);
+    }
+
+    private void run(int deckSize) {
+        List<Flashcard> deck = SyntheticDeck.generate(deckSize, 42);
+
+        long buildStart = System.nanoTime();
+        SearchIndex index = new SearchIndex();
+        for (Flashcard card : deck) {
+            index.add(card);
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        System.out.println("SearchIndexBenchmark " + deckSize + " cards, index built in " + buildMs + " ms");
+        for (String query : QUERIES) {
+            // Warm up and check both paths agree before timing
+            List<Flashcard> expected = linearScan(deck, query);
+            assertEquals(ids(expected), ids(index.search(query)));
+
+            long scanNs = time(() -> linearScan(deck, query));
+            long indexNs = time(() -> index.search(query));
+            System.out.printf("  %-22s %6d hits  scan %8d us  index %8d us%n",
+                    "\"" + query + "\"", expected.size(), scanNs / 1000, indexNs / 1000);
+        }
+    }
+
+    // The filter FlashcardListActivity ran before the index existed
+    private static List<Flashcard> linearScan(List<Flashcard> deck, String query) {
+        List<Flashcard> filteredList = new ArrayList<>();
+        String lowercaseQuery = query.toLowerCase().trim();
+        for (Flashcard flashcard : deck) {
+            if (flashcard.getQuestion().toLowerCase().contains(lowercaseQuery) ||
+                    flashcard.getAnswer().toLowerCase().contains(lowercaseQuery)) {
+                filteredList.add(flashcard);
+            }
+        }
+        return filteredList;
+    }
+
+    private static long time(Runnable query) {
+        query.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static List<String> ids(List<Flashcard> cards) {
+        List<String> ids = new ArrayList<>(cards.size());
+        for (Flashcard card : cards) {
+            ids.add(card.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchIndexTest {
+
+    @Test
+    public void search_matchesQuestionOrAnswerIgnoringCase() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Flashcard("b", "What is the Powerhouse of the cell?", "Mitochondria"));
+        index.add(new Flashcard("a", "Capital of France?", "Paris"));
+        index.add(new Flashcard("c", "Largest planet?", "Jupiter"));
+
+        List<Flashcard> results = index.search("  PARIS ");
+        assertEquals(1, results.size());
+        assertEquals("a", results.get(0).getId());
+
+        assertEquals(0, index.search("mars").size());
+        assertEquals(3, index.search("?").size());
+    }
+
+    @Test
+    public void search_doesNotMatchAcrossFields() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Flashcard("a", "abc", "def"));
+
+        assertTrue(index.search("cde").isEmpty());
+        assertTrue(index.search("c d").isEmpty());
+    }
+
+    @Test
+    public void editsAndDeletes_updateIndexIncrementally() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Flashcard("a", "Old question", "Old answer"));
+        index.add(new Flashcard("b", "Another question", "Another answer"));
+
+        index.add(new Flashcard("a", "New question", "New answer"));
+        assertTrue(index.search("old").isEmpty());
+        assertEquals(1, index.search("new").size());
+
+        index.remove("b");
+        assertEquals(1, index.search("question").size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void results_areInDisplayOrderAfterCompaction() {
+        SearchIndex index = new SearchIndex();
+        List<Flashcard> deck = SyntheticDeck.generate(3000, 7);
+        for (Flashcard card : deck) {
+            index.add(card);
+        }
+        // Enough edits to force at least one rebuild of the posting lists
+        for (int i = 0; i < 2500; i++) {
+            Flashcard card = deck.get(i);
+            index.add(new Flashcard(card.getId(), card.getQuestion() + " edited", card.getAnswer()));
+        }
+
+        List<Flashcard> results = index.search("edited");
+        assertEquals(2500, results.size());
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getId().compareTo(results.get(i).getId()) < 0);
+        }
+    }
+}
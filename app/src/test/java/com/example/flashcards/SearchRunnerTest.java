@@ -0,0 +1,94 @@
+package com.example.flashcards;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchRunnerTest {
+
+    // Stands in for the main looper: results queue up until drained by the test
+    private final ConcurrentLinkedQueue<Runnable> mainThread = new ConcurrentLinkedQueue<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private SearchRunner runner;
+
+    @Before
+    public void setUp() {
+        runner = new SearchRunner(mainThread::add, worker);
+    }
+
+    @After
+    public void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    public void newerSearch_supersedesOlderOne() throws Exception {
+        runner.add(new Flashcard("a", "apple", "fruit"));
+        runner.add(new Flashcard("b", "banana", "fruit"));
+        List<String> delivered = new ArrayList<>();
+
+        runner.search("apple", (results, complete, latency) -> delivered.add("apple " + results.size()));
+        runner.search("banana", (results, complete, latency) -> delivered.add("banana " + results.size()));
+        awaitWorkerIdle();
+        drainMainThread();
+
+        assertEquals(1, delivered.size());
+        assertEquals("banana 1", delivered.get(0));
+    }
+
+    @Test
+    public void cancel_dropsPendingResults() throws Exception {
+        runner.add(new Flashcard("a", "apple", "fruit"));
+        List<List<Flashcard>> delivered = new ArrayList<>();
+
+        runner.search("apple", (results, complete, latency) -> delivered.add(results));
+        awaitWorkerIdle();
+        runner.cancel();
+        drainMainThread();
+
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void largeDeck_streamsFirstMatchesBeforeCompleteList() throws Exception {
+        for (int i = 0; i < SearchRunner.STREAMING_THRESHOLD; i++) {
+            runner.add(new Flashcard(SyntheticDeck.id(i), "Question " + i, "shared answer"));
+        }
+        List<Integer> sizes = new ArrayList<>();
+        List<Boolean> completes = new ArrayList<>();
+
+        runner.search("shared", (results, complete, latency) -> {
+            sizes.add(results.size());
+            completes.add(complete);
+        });
+        awaitWorkerIdle();
+        drainMainThread();
+
+        assertEquals(2, sizes.size());
+        assertEquals(SearchRunner.FIRST_MATCH_COUNT, (int) sizes.get(0));
+        assertFalse(completes.get(0));
+        assertEquals(SearchRunner.STREAMING_THRESHOLD, (int) sizes.get(1));
+        assertTrue(completes.get(1));
+    }
+
+    private void awaitWorkerIdle() throws Exception {
+        // The worker is single threaded, so this runs after every earlier task
+        worker.submit(() -> {}).get(10, TimeUnit.SECONDS);
+    }
+
+    private void drainMainThread() {
+        Runnable runnable;
+        while ((runnable = mainThread.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
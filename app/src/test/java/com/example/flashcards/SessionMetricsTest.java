@@ -0,0 +1,45 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SessionMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void recordsRevealAndGradeLatency() {
+        SessionMetrics metrics = new SessionMetrics();
+        metrics.onCardShown(1000 * MS);
+        metrics.onAnswerRevealed(3500 * MS);
+        metrics.onAnswerRevealed(4000 * MS); // Flipping back and forth keeps the first reveal
+        metrics.onGraded("a", ReviewScheduler.Grade.GOOD, 5000 * MS);
+
+        SessionMetrics.Review review = metrics.getReviews().get(0);
+        assertEquals(2500, review.revealMs);
+        assertEquals(4000, review.gradeMs);
+        assertEquals(1, metrics.getGradeCount(ReviewScheduler.Grade.GOOD));
+    }
+
+    @Test
+    public void gradeWithoutShownCard_isIgnored() {
+        SessionMetrics metrics = new SessionMetrics();
+        metrics.onGraded("a", ReviewScheduler.Grade.AGAIN, 10 * MS);
+        assertEquals(0, metrics.getReviewedCount());
+    }
+
+    @Test
+    public void percentiles_useNearestRank() {
+        SessionMetrics metrics = new SessionMetrics();
+        for (int i = 1; i <= 10; i++) {
+            metrics.onCardShown(0);
+            metrics.onAnswerRevealed(i * 100 * MS);
+            metrics.onGraded("card-" + i, ReviewScheduler.Grade.GOOD, i * 100 * MS);
+        }
+        assertEquals(500, metrics.revealPercentileMs(50));
+        assertEquals(900, metrics.revealPercentileMs(90));
+        assertEquals(1000, metrics.revealPercentileMs(100));
+        assertEquals(0, new SessionMetrics().revealPercentileMs(50));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StableIdsTest {
+
+    @Test
+    public void sameKey_getsSameId() {
+        StableIds ids = new StableIds();
+        long first = ids.idFor("card-a");
+        ids.idFor("card-b");
+        assertEquals(first, ids.idFor("card-a"));
+        assertEquals(2, ids.size());
+    }
+
+    @Test
+    public void differentKeys_getDifferentIds() {
+        StableIds ids = new StableIds();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seen.add(ids.idFor(SyntheticDeck.id(i))));
+        }
+    }
+
+    @Test
+    public void forget_dropsOnlyThatKey() {
+        StableIds ids = new StableIds();
+        long a = ids.idFor("card-a");
+        long b = ids.idFor("card-b");
+        long c = ids.idFor("card-c");
+
+        ids.forget("card-b");
+
+        assertEquals(2, ids.size());
+        assertEquals(a, ids.idFor("card-a"));
+        assertEquals(c, ids.idFor("card-c"));
+        // Back in the deck as a new row
+        long again = ids.idFor("card-b");
+        assertNotEquals(b, again);
+        assertNotEquals(a, again);
+        assertNotEquals(c, again);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.flashcards;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic card generator shared by the JVM tests and benchmarks
+final class SyntheticDeck {
+
+    private static final String[] WORDS = {
+            "cell", "membrane", "protein", "enzyme", "energy", "river", "mountain", "capital",
+            "country", "war", "treaty", "empire", "atom", "molecule", "reaction", "acid",
+            "base", "theorem", "integral", "vector", "matrix", "prime", "function", "verb",
+            "noun", "tense", "poem", "novel", "author", "planet", "orbit", "gravity",
+            "photosynthesis", "mitochondria", "revolution", "democracy", "equation", "language"
+    };
+
+    private SyntheticDeck() {}
+
+    static List<Flashcard> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Flashcard> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(new Flashcard(id(i), sentence(random, 6) + "?", sentence(random, 14) + "."));
+        }
+        return cards;
+    }
+
+    static String id(int i) {
+        return String.format("card-%06d", i);
+    }
+
+    static String sentence(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            String word = WORDS[random.nextInt(WORDS.length)];
+            builder.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return builder.toString();
+    }
+}
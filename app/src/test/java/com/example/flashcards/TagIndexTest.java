@@ -0,0 +1,80 @@
+package com.example.flashcards;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TagIndexTest {
+
+    private static Flashcard card(String id, String category, String... tags) {
+        Flashcard card = new Flashcard(id, "Q " + id, "A " + id);
+        card.setCategory(category);
+        card.setTags(Arrays.asList(tags));
+        return card;
+    }
+
+    @Test
+    public void findsCardsByCategoryAndTag() {
+        TagIndex index = new TagIndex();
+        index.update(card("a", "Biology", "cells", "exam"));
+        index.update(card("b", "Biology", "exam"));
+        index.update(card("c", "History"));
+
+        assertEquals(set("a", "b"), index.cardIds(CardFilter.category("Biology")));
+        assertEquals(set("a", "b"), index.cardIds(CardFilter.tag("exam")));
+        assertEquals(set("a"), index.cardIds(CardFilter.tag("cells")));
+        assertTrue(index.cardIds(CardFilter.tag("missing")).isEmpty());
+        assertEquals(Integer.valueOf(2), index.categoryCounts().get("Biology"));
+        assertEquals(Arrays.asList("Biology", "History"), Arrays.asList(index.categoryCounts().keySet().toArray()));
+    }
+
+    @Test
+    public void update_movesCardToItsNewCategoryAndTags() {
+        TagIndex index = new TagIndex();
+        index.update(card("a", "Biology", "exam"));
+        index.update(card("a", "Chemistry", "lab"));
+
+        assertTrue(index.cardIds(CardFilter.category("Biology")).isEmpty());
+        assertTrue(index.cardIds(CardFilter.tag("exam")).isEmpty());
+        assertEquals(set("a"), index.cardIds(CardFilter.category("Chemistry")));
+        assertEquals(Collections.singleton("lab"), index.tagCounts().keySet());
+    }
+
+    @Test
+    public void remove_dropsEmptyEntries() {
+        TagIndex index = new TagIndex();
+        index.update(card("a", "Biology", "exam"));
+        index.remove("a");
+        index.remove("never-indexed");
+
+        assertTrue(index.categoryCounts().isEmpty());
+        assertTrue(index.tagCounts().isEmpty());
+    }
+
+    @Test
+    public void filterMatchesAgreeWithIndex() {
+        Flashcard card = card("a", "Biology", "exam");
+        assertTrue(CardFilter.category("Biology").matches(card));
+        assertFalse(CardFilter.category("exam").matches(card));
+        assertTrue(CardFilter.tag("exam").matches(card));
+        assertEquals(CardFilter.tag("exam"), CardFilter.tag("exam"));
+        assertNotEquals(CardFilter.tag("exam"), CardFilter.category("exam"));
+    }
+
+    @Test
+    public void parseTags_trimsAndDropsBlanksAndRepeats() {
+        assertEquals(Arrays.asList("a", "b c"), TagIndex.parseTags(" a, b c ,, a "));
+        assertTrue(TagIndex.parseTags("  ").isEmpty());
+        assertTrue(TagIndex.parseTags(null).isEmpty());
+        assertEquals("a, b c", TagIndex.joinTags(TagIndex.parseTags("a,b c")));
+    }
+
+    private static Set<String> set(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -2,5 +2,6 @@
 
 plugins {
     alias(libs.plugins.android.application) apply false
+    alias(libs.plugins.android.test) apply false
     id("com.google.gms.google-services") version "4.4.0" apply false // ✅ ADD THIS LINE
 }
@@ -0,0 +1,92 @@
+package com.example.flashcards.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame durations while the card list is flung, with and without cards
+ * mid-flip. Run against two builds to compare scroll jank before and after a
+ * change to the rows. Needs a signed-in device whose deck has a few screens
+ * of cards.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlipScrollBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.flashcards";
+    private static final int ITERATIONS = 5;
+    private static final int SCREENS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollWhileFlipping() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE_NAME, "recyclerView")), 5000);
+                    list.setGestureMargin(device.getDisplayWidth() / 5);
+                    for (int i = 0; i < SCREENS; i++) {
+                        // Start a flip on every visible row, then fling while they are still turning
+                        for (UiObject2 row : list.getChildren()) {
+                            row.click();
+                        }
+                        list.fling(Direction.DOWN);
+                        device.waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Plain flings, where each new row is inflated or rebound as it scrolls in
+    @Test
+    public void scroll() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    UiObject2 list = device.wait(Until.findObject(By.res(PACKAGE_NAME, "recyclerView")), 5000);
+                    list.setGestureMargin(device.getDisplayWidth() / 5);
+                    for (int i = 0; i < SCREENS; i++) {
+                        list.fling(Direction.DOWN);
+                        device.waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.flashcards.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold and warm start of the app, from process start to the first card drawn
+ * (timeToFullDisplay comes from FlashcardListActivity's reportFullyDrawn call).
+ * Run with {@code ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest}
+ * on a device that is already signed in, so startup lands on the card list.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.flashcards";
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartup() {
+        measureStartup(StartupMode.COLD);
+    }
+
+    @Test
+    public void warmStartup() {
+        measureStartup(StartupMode.WARM);
+    }
+
+    private void measureStartup(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                CompilationMode.DEFAULT,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}